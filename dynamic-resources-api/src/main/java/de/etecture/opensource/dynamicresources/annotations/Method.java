@@ -139,4 +139,23 @@ public @interface Method {
      */
     @Nonbinding
     Header[] headers() default {};
+
+    /**
+     * the number of seconds, the serialized response of a GET request may be
+     * cached by the servlet. Defaults to 0, that disables the cache.
+     *
+     * @return
+     */
+    @Nonbinding
+    int cacheSeconds() default 0;
+
+    /**
+     * whether identical GET requests, that arrive concurrently, may share one
+     * execution. The entity is shared by all these requests, so it must not be
+     * modified after it was returned. Defaults to false.
+     *
+     * @return
+     */
+    @Nonbinding
+    boolean coalesce() default false;
 }
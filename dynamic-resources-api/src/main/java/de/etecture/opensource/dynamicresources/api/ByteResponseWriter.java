@@ -0,0 +1,71 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * this interface is used to write an object as bytes to the response.
+ * <p>
+ * it is an optional alternative to {@link ResponseWriter} for writers that
+ * already hold bytes (e.g. cached representations, pre-encoded templates or
+ * binary formats). If a byte writer and a {@link ResponseWriter} are
+ * registered for the same type and media type, the byte writer is preferred.
+ *
+ * @author rhk
+ * @version ${project.version}
+ * @since
+ */
+public interface ByteResponseWriter<T> {
+
+    /**
+     * write the element to the response stream. The stream must not be
+     * closed by this method.
+     *
+     * @param element the element to be written
+     * @param out the stream to be used.
+     * @param mimetype the accepted mimetype, containing the encoding to be
+     * used for text formats.
+     * @throws IOException
+     */
+    void processElement(T element, OutputStream out, MediaType mimetype)
+            throws IOException;
+}
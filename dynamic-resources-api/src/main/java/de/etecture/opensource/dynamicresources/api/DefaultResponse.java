@@ -39,9 +39,9 @@
  */
 package de.etecture.opensource.dynamicresources.api;
 
-import java.util.ArrayList;
+import de.etecture.opensource.dynamicresources.utils.CaseInsensitiveArrayMap;
+import de.etecture.opensource.dynamicresources.utils.ValueList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -57,7 +57,8 @@ public class DefaultResponse<T> implements Response<T> {
     private final T entity;
     private final Throwable exception;
     private int status;
-    private final Map<String, List<Object>> header = new HashMap<>();
+    private final Map<String, List<Object>> header
+            = new CaseInsensitiveArrayMap<>();
 
     public DefaultResponse(T entity, int status) {
         this.entity = entity;
@@ -91,7 +92,7 @@ public class DefaultResponse<T> implements Response<T> {
     public void addHeader(String headerName, Object value) {
         List<Object> values = header.get(headerName);
         if (values == null) {
-            values = new ArrayList<>();
+            values = new ValueList<>();
             header.put(headerName, values);
         }
         values.add(value);
@@ -99,8 +100,9 @@ public class DefaultResponse<T> implements Response<T> {
 
     @Override
     public List<Object> getHeader(String headerName) {
-        if (header.containsKey(headerName)) {
-            return Collections.unmodifiableList(header.get(headerName));
+        List<Object> values = header.get(headerName);
+        if (values != null) {
+            return Collections.unmodifiableList(values);
         } else {
             return Collections.emptyList();
         }
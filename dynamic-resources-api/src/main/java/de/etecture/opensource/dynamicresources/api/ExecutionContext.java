@@ -42,9 +42,11 @@ package de.etecture.opensource.dynamicresources.api;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethod;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodRequest;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponse;
+import de.etecture.opensource.dynamicresources.utils.ArrayMap;
 import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -53,6 +55,10 @@ import java.util.Set;
  * defines an execution context for a resource method, that provide the
  * response.
  * <p>
+ * the parameters, that have a position in the {@link ParameterLayout} of the
+ * context, are stored in an array. All other parameters are stored by their
+ * name.
+ * <p>
  * @param <R>
  * @author rhk
  * @version
@@ -66,7 +72,13 @@ public final class ExecutionContext<R, B> {
 
     private final ResourceMethod resourceMethod;
 
-    private final Map<String, Object> parameters = new HashMap<>();
+    private static final Object ABSENT = new Object();
+
+    private final ParameterLayout layout;
+
+    private final Object[] values;
+
+    private Map<String, Object> parameters;
 
     private final B body;
 
@@ -88,6 +100,14 @@ public final class ExecutionContext<R, B> {
             ResourceMethodResponse<R> responseMetadata,
             ResourceMethodRequest<B> requestMetadata,
             B body, Map<String, Object> parameters) {
+        this(responseMetadata, requestMetadata, body, parameters,
+             ParameterLayout.EMPTY);
+    }
+
+    public ExecutionContext(
+            ResourceMethodResponse<R> responseMetadata,
+            ResourceMethodRequest<B> requestMetadata,
+            B body, Map<String, Object> parameters, ParameterLayout layout) {
         this.requestMetadata = requestMetadata;
         if (responseMetadata == null) {
             throw new IllegalArgumentException(
@@ -96,7 +116,12 @@ public final class ExecutionContext<R, B> {
         this.responseMetadata = responseMetadata;
         this.resourceMethod = this.responseMetadata.getMethod();
         this.body = body;
-        this.parameters.putAll(parameters);
+        this.layout = layout;
+        this.values = new Object[layout.size()];
+        Arrays.fill(this.values, ABSENT);
+        for (Map.Entry<String, Object> e : parameters.entrySet()) {
+            setParameterValue(e.getKey(), e.getValue());
+        }
     }
 
     /**
@@ -136,7 +161,25 @@ public final class ExecutionContext<R, B> {
      * @return
      */
     public Set<String> getParameterNames() {
-        return Collections.unmodifiableSet(parameters.keySet());
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != ABSENT) {
+                names.add(layout.getName(i));
+            }
+        }
+        if (parameters != null) {
+            names.addAll(parameters.keySet());
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * returns the layout of the positioned parameters of this context.
+     * <p>
+     * @return
+     */
+    public ParameterLayout getParameterLayout() {
+        return layout;
     }
 
     /**
@@ -183,7 +226,103 @@ public final class ExecutionContext<R, B> {
      * @return
      */
     public Object getParameterValue(String name) {
-        return parameters.get(name);
+        int position = layout.indexOf(name);
+        if (position >= 0) {
+            Object value = values[position];
+            return value == ABSENT ? null : value;
+        }
+        return parameters == null ? null : parameters.get(name);
+    }
+
+    /**
+     * returns the single value of the parameter with the given name, if it is
+     * of the given type.
+     * <p>
+     * @param <T>
+     * @param name
+     * @param type
+     * @return the value or null, if there is no value of this type.
+     */
+    public <T> T getTypedParameterValue(String name, Class<T> type) {
+        Object value = single(getParameterValue(name));
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    /**
+     * returns the single value of the parameter with the given name as an int.
+     * <p>
+     * @param name
+     * @param defaultValue returned, if no value is defined.
+     * @return
+     * @throws NumberFormatException if the value is a string, that is not a
+     * number.
+     */
+    public int getInt(String name, int defaultValue) {
+        Object value = single(getParameterValue(name));
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        } else if (value instanceof String) {
+            return Integer.parseInt(((String) value).trim());
+        }
+        return defaultValue;
+    }
+
+    /**
+     * returns the single value of the parameter with the given name as a long.
+     * <p>
+     * @param name
+     * @param defaultValue returned, if no value is defined.
+     * @return
+     * @throws NumberFormatException if the value is a string, that is not a
+     * number.
+     */
+    public long getLong(String name, long defaultValue) {
+        Object value = single(getParameterValue(name));
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        } else if (value instanceof String) {
+            return Long.parseLong(((String) value).trim());
+        }
+        return defaultValue;
+    }
+
+    /**
+     * returns the single value of the parameter with the given name as a
+     * boolean.
+     * <p>
+     * @param name
+     * @param defaultValue returned, if no value is defined.
+     * @return
+     */
+    public boolean getBoolean(String name, boolean defaultValue) {
+        Object value = single(getParameterValue(name));
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else if (value instanceof String) {
+            return Boolean.parseBoolean(((String) value).trim());
+        }
+        return defaultValue;
+    }
+
+    /**
+     * returns the value of the parameter at the given position of the layout.
+     * <p>
+     * @param position
+     * @return
+     */
+    public Object getFilterValue(int position) {
+        Object value = values[layout.target(position)];
+        return value == ABSENT ? null : value;
+    }
+
+    /**
+     * defines the value of the parameter at the given position of the layout.
+     * <p>
+     * @param position
+     * @param value
+     */
+    public void setFilterValue(int position, Object value) {
+        values[layout.target(position)] = value;
     }
 
     /**
@@ -194,7 +333,15 @@ public final class ExecutionContext<R, B> {
      * @param value
      */
     public void setParameterValue(String name, Object value) {
-        this.parameters.put(name, value);
+        int position = layout.indexOf(name);
+        if (position >= 0) {
+            values[position] = value;
+        } else {
+            if (parameters == null) {
+                parameters = new ArrayMap<>();
+            }
+            parameters.put(name, value);
+        }
     }
 
     /**
@@ -205,7 +352,11 @@ public final class ExecutionContext<R, B> {
      * @return
      */
     public boolean hasParameter(String name) {
-        return this.parameters.containsKey(name);
+        int position = layout.indexOf(name);
+        if (position >= 0) {
+            return values[position] != ABSENT;
+        }
+        return parameters != null && parameters.containsKey(name);
     }
 
     /**
@@ -214,7 +365,12 @@ public final class ExecutionContext<R, B> {
      * @param name
      */
     public void removeParameter(String name) {
-        this.parameters.remove(name);
+        int position = layout.indexOf(name);
+        if (position >= 0) {
+            values[position] = ABSENT;
+        } else if (parameters != null) {
+            parameters.remove(name);
+        }
     }
 
     /**
@@ -225,4 +381,14 @@ public final class ExecutionContext<R, B> {
     public B getBody() {
         return body;
     }
+
+    private static Object single(Object value) {
+        if (value instanceof List) {
+            List<?> list = (List<?>) value;
+            return list.isEmpty() ? null : list.get(0);
+        } else if (value != null && value.getClass().isArray()) {
+            return Array.getLength(value) == 0 ? null : Array.get(value, 0);
+        }
+        return value;
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.api;
+
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodFilter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * assigns a fixed position to each filter of a resource method.
+ * <p>
+ * the layout is built once for a resource method, so an
+ * {@link ExecutionContext} can store the filter values in an array and the
+ * filters can be filled by their position instead of their name.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public final class ParameterLayout {
+
+    /**
+     * the layout without any positions.
+     */
+    public static final ParameterLayout EMPTY = new ParameterLayout(
+            new String[0]);
+    private final String[] names;
+    private final int[] targets;
+    private final Map<String, Integer> positions;
+
+    private ParameterLayout(String[] names) {
+        this.names = names;
+        this.targets = new int[names.length];
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            // filters with the same name share the position of the first one.
+            Integer first = map.get(names[i]);
+            if (first == null) {
+                map.put(names[i], i);
+                targets[i] = i;
+            } else {
+                targets[i] = first;
+            }
+        }
+        this.positions = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * creates the layout for the given filters in their order.
+     *
+     * @param filters
+     * @return
+     */
+    public static ParameterLayout of(ResourceMethodFilter<?>... filters) {
+        if (filters.length == 0) {
+            return EMPTY;
+        }
+        String[] names = new String[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            names[i] = filters[i].getName();
+        }
+        return new ParameterLayout(names);
+    }
+
+    /**
+     * returns the number of positions.
+     *
+     * @return
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * returns the name of the parameter at the given position.
+     *
+     * @param position
+     * @return
+     */
+    public String getName(int position) {
+        return names[position];
+    }
+
+    /**
+     * returns the position of the parameter with the given name.
+     *
+     * @param name
+     * @return the position or -1, if the parameter has no position.
+     */
+    public int indexOf(String name) {
+        Integer position = positions.get(name);
+        return position == null ? -1 : position;
+    }
+
+    int target(int position) {
+        return targets[position];
+    }
+}
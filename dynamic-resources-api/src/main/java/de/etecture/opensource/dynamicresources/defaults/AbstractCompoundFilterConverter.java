@@ -45,11 +45,14 @@ import de.etecture.opensource.dynamicresources.api.InvalidFilterValueException;
 import de.etecture.opensource.dynamicresources.defaults.AbstractCompoundFilterConverter.FilterPart;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodFilter;
 import de.herschke.converters.api.ConvertException;
+import de.herschke.converters.api.Converter;
 import de.herschke.converters.api.Converters;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.inject.Inject;
 
 /**
@@ -69,6 +72,9 @@ public abstract class AbstractCompoundFilterConverter<F extends FilterPart>
 
     private final String template;
 
+    private final ConcurrentMap<Class<?>, Converter<?>> resolvedConverters
+            = new ConcurrentHashMap<>();
+
     public interface FilterPart {
 
         String name();
@@ -101,15 +107,24 @@ public abstract class AbstractCompoundFilterConverter<F extends FilterPart>
                 for (F part : parts) {
                     partValues[part.ordinal()] = part.value(context);
                 }
-                return converters.select(filter.getType()).convert(String
+                return converter(filter.getType()).convert(String
                         .format(
                                 template, partValues));
             } else {
-                return converters.select(filter.getType()).convert(context
+                return converter(filter.getType()).convert(context
                         .getParameterValue(filter.getName()));
             }
         } catch (ConvertException ex) {
             throw new InvalidFilterValueException(filter, ex);
         }
     }
+
+    private <T> Converter<T> converter(Class<T> type) {
+        Converter<T> converter = (Converter<T>) resolvedConverters.get(type);
+        if (converter == null) {
+            converter = converters.select(type);
+            resolvedConverters.putIfAbsent(type, converter);
+        }
+        return converter;
+    }
 }
@@ -44,11 +44,23 @@ import de.etecture.opensource.dynamicresources.api.FilterValueGenerator;
 import de.etecture.opensource.dynamicresources.api.InvalidFilterValueException;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodFilter;
 import de.herschke.converters.api.ConvertException;
+import de.herschke.converters.api.Converter;
 import de.herschke.converters.api.Converters;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.inject.Inject;
 
 /**
+ * converts the parameter value of a filter to the type of the filter.
+ * <p>
+ * the converter and the converted default value are resolved once for each
+ * filter. A default value is only reused, if its type is immutable.
  *
  * @author rhk
  * @version
@@ -56,14 +68,21 @@ import javax.inject.Inject;
  */
 public class DefaultFilterValueGenerator implements FilterValueGenerator {
 
+    private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays
+            .<Class<?>>asList(String.class, Boolean.class, Character.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class,
+            Double.class, BigInteger.class, BigDecimal.class));
     @Inject
     Converters converters;
+    private final ConcurrentMap<ResourceMethodFilter<?>, CompiledFilter<?>> compiled
+            = new ConcurrentHashMap<>();
 
     @Override
     public <T> T generate(
             ResourceMethodFilter<T> filter, ExecutionContext<?, ?> context)
             throws
             InvalidFilterValueException {
+        CompiledFilter<T> compiledFilter = compile(filter);
         Object value = context.getParameterValue(filter.getName());
         try {
             if (value instanceof Collection) {
@@ -73,10 +92,16 @@ public class DefaultFilterValueGenerator implements FilterValueGenerator {
                     value = ((Collection) value).iterator().next();
                 }
             }
-            if (value == null) {
+            T t;
+            if (value == null && compiledFilter.hasDefault) {
                 value = filter.getDefaultValue();
+                t = compiledFilter.defaultValue;
+            } else {
+                if (value == null) {
+                    value = filter.getDefaultValue();
+                }
+                t = compiledFilter.converter.convert(value);
             }
-            T t = converters.select(filter.getType()).convert(value);
             if (filter.isValidValue(t)) {
                 return t;
             } else {
@@ -86,4 +111,40 @@ public class DefaultFilterValueGenerator implements FilterValueGenerator {
             throw new InvalidFilterValueException(filter, ex, value);
         }
     }
+
+    private <T> CompiledFilter<T> compile(ResourceMethodFilter<T> filter) {
+        CompiledFilter<T> compiledFilter = (CompiledFilter<T>) compiled.get(
+                filter);
+        if (compiledFilter == null) {
+            compiledFilter = new CompiledFilter<>(converters.select(filter
+                    .getType()), filter.getDefaultValue());
+            compiled.putIfAbsent(filter, compiledFilter);
+        }
+        return compiledFilter;
+    }
+
+    /**
+     * the resolved converter and the converted default value of a filter.
+     */
+    private static final class CompiledFilter<T> {
+
+        private final Converter<T> converter;
+        private final boolean hasDefault;
+        private final T defaultValue;
+
+        CompiledFilter(Converter<T> converter, String rawDefault) {
+            this.converter = converter;
+            T converted = null;
+            boolean reusable = false;
+            try {
+                converted = converter.convert(rawDefault);
+                reusable = converted == null || converted instanceof Enum
+                        || IMMUTABLE_TYPES.contains(converted.getClass());
+            } catch (ConvertException | RuntimeException ex) {
+                // convert it per request, to report the failure there.
+            }
+            this.hasDefault = reusable;
+            this.defaultValue = reusable ? converted : null;
+        }
+    }
 }
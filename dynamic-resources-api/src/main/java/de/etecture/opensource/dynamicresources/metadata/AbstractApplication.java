@@ -58,6 +58,7 @@ public abstract class AbstractApplication implements Application {
     protected final String description;
     protected final Set<Resource> resources = new HashSet<>();
     protected Set<String> roleNames = null;
+    private volatile ResourceRouter router = null;
 
     public AbstractApplication(String name, String base, String description) {
         this.name = name;
@@ -70,17 +71,45 @@ public abstract class AbstractApplication implements Application {
             throw new IllegalArgumentException("Cannot add resource that is not part of this application!");
         }
         resources.add(r);
+        router = null;
+    }
+
+    /**
+     * compiles the routing trie for the resources of this application. This
+     * should be called once after all resources are added.
+     */
+    public void compileRoutes() {
+        router = new ResourceRouter(base, resources);
     }
 
     @Override
     public Resource findResource(String uri) throws
             ResourceNotFoundException {
-        for (Resource resource : resources) {
-            if (resource.getPath().matches(uri)) {
-                return resource;
-            }
+        return matchResource(uri).getResource();
+    }
+
+    /**
+     * same as {@link #findResource(java.lang.String)} but returns the path
+     * parameter values extracted from the given path together with the
+     * resource, so the path has not to be matched twice.
+     *
+     * @param uri
+     * @return
+     * @throws ResourceNotFoundException
+     */
+    public ResourceMatch matchResource(String uri) throws
+            ResourceNotFoundException {
+        ResourceRouter current = router;
+        if (current == null) {
+            // not compiled yet, so do it now.
+            current = new ResourceRouter(base, resources);
+            router = current;
+        }
+        ResourceMatch match = current.route(uri);
+        if (match == null) {
+            throw new ResourceNotFoundException(uri);
         }
-        throw new ResourceNotFoundException(uri.toString());
+        return match;
     }
 
     @Override
@@ -41,12 +41,20 @@ package de.etecture.opensource.dynamicresources.metadata;
 
 import de.etecture.opensource.dynamicresources.api.MediaType;
 import de.etecture.opensource.dynamicresources.utils.AbstractValueMap;
+import de.etecture.opensource.dynamicresources.utils.BoundedCache;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * the basic implementation of a {@link ResourceMethod}.
+ * <p>
+ * the media types of the requests and responses are compiled into an
+ * immutable negotiation table when the method is negotiated first. The
+ * outcome of a negotiation, including the case that no request or response
+ * fits, is cached per media type. As the media types of the requests are
+ * interned, repeated requests do no negotiation at all.
  *
  * @author rhk
  * @version
@@ -54,6 +62,8 @@ import java.util.Set;
  */
 public class BasicResourceMethod implements ResourceMethod {
 
+    private static final int MAX_CACHED_NEGOTIATIONS = 64;
+
     private final Resource resource;
     private final String name;
     private final String description;
@@ -61,6 +71,13 @@ public class BasicResourceMethod implements ResourceMethod {
     private final Set<ResourceMethodFilter<?>> filters = new HashSet<>();
     private final Set<ResourceMethodRequest<?>> requests = new HashSet<>();
     private final Set<ResourceMethodResponse<?>> responses = new HashSet<>();
+    private final BoundedCache<MediaType, Set<ResourceMethodRequest<?>>>
+            requestNegotiations = new BoundedCache<>(MAX_CACHED_NEGOTIATIONS);
+    private final BoundedCache<MediaType, Set<ResourceMethodResponse<?>>>
+            responseNegotiations = new BoundedCache<>(MAX_CACHED_NEGOTIATIONS);
+    private volatile NegotiationTable table;
+    private int cacheSeconds;
+    private boolean coalesced;
 
     public BasicResourceMethod(Resource resource, String name,
             String description) {
@@ -89,6 +106,7 @@ public class BasicResourceMethod implements ResourceMethod {
                     "can only add request that is part of this method.");
         }
         this.requests.add(request);
+        reset();
     }
 
     public <R> void addResponse(
@@ -98,6 +116,30 @@ public class BasicResourceMethod implements ResourceMethod {
                     "can only add response that is part of this method.");
         }
         this.responses.add(response);
+        reset();
+    }
+
+    protected void setCacheSeconds(int cacheSeconds) {
+        this.cacheSeconds = cacheSeconds;
+    }
+
+    protected void setCoalesced(boolean coalesced) {
+        this.coalesced = coalesced;
+    }
+
+    private void reset() {
+        this.table = null;
+        this.requestNegotiations.clear();
+        this.responseNegotiations.clear();
+    }
+
+    private NegotiationTable table() {
+        NegotiationTable current = table;
+        if (current == null) {
+            current = new NegotiationTable(requests, responses);
+            table = current;
+        }
+        return current;
     }
 
     @Override
@@ -105,6 +147,16 @@ public class BasicResourceMethod implements ResourceMethod {
         return Collections.unmodifiableSet(allowedRoleNames);
     }
 
+    @Override
+    public int getCacheSeconds() {
+        return cacheSeconds;
+    }
+
+    @Override
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
     @Override
     public String getDescription() {
         return description;
@@ -123,15 +175,11 @@ public class BasicResourceMethod implements ResourceMethod {
     @Override
     public Set<ResourceMethodRequest<?>> getRequests(MediaType mediaType) throws
             MediaTypeNotAllowedException {
-        Set<ResourceMethodRequest<?>> possibleRequests = new HashSet<>();
-        for (ResourceMethodRequest<?> request : requests) {
-            final MediaType[] allowed = request.getAllowedRequestMediaTypes()
-                    .toArray(new MediaType[request.getAllowedRequestMediaTypes()
-                    .size()]);
-            if (mediaType.isCompatibleTo(allowed)) {
-                possibleRequests.add(request);
-                continue;
-            }
+        Set<ResourceMethodRequest<?>> possibleRequests = requestNegotiations
+                .get(mediaType);
+        if (possibleRequests == null) {
+            possibleRequests = requestNegotiations.putIfAbsent(mediaType,
+                    table().negotiateRequests(mediaType));
         }
         if (possibleRequests.isEmpty()) {
             throw new MediaTypeNotAllowedException(this, mediaType);
@@ -166,16 +214,11 @@ public class BasicResourceMethod implements ResourceMethod {
     public Set<ResourceMethodResponse<?>> getResponses(MediaType mediaType)
             throws
             MediaTypeNotSupportedException {
-        Set<ResourceMethodResponse<?>> possibleResponses = new HashSet<>();
-        for (ResourceMethodResponse<?> response : responses) {
-            if (mediaType.isCompatibleTo(response
-                    .getSupportedResponseMediaTypes().
-                    toArray(new MediaType[response
-                    .getSupportedResponseMediaTypes().
-                    size()]))) {
-                possibleResponses.add(response);
-                continue;
-            }
+        Set<ResourceMethodResponse<?>> possibleResponses = responseNegotiations
+                .get(mediaType);
+        if (possibleResponses == null) {
+            possibleResponses = responseNegotiations.putIfAbsent(mediaType,
+                    table().negotiateResponses(mediaType));
         }
         if (possibleResponses.isEmpty()) {
             throw new MediaTypeNotSupportedException(this, mediaType);
@@ -301,4 +344,57 @@ public class BasicResourceMethod implements ResourceMethod {
     public Resource getResource() {
         return resource;
     }
+
+    /**
+     * the media types of the requests and responses as arrays, so a
+     * negotiation only compares preparsed media types.
+     */
+    private static final class NegotiationTable {
+
+        private final ResourceMethodRequest<?>[] requests;
+        private final MediaType[][] requestTypes;
+        private final ResourceMethodResponse<?>[] responses;
+        private final MediaType[][] responseTypes;
+
+        NegotiationTable(Set<ResourceMethodRequest<?>> requests,
+                Set<ResourceMethodResponse<?>> responses) {
+            this.requests = requests.toArray(
+                    new ResourceMethodRequest<?>[requests.size()]);
+            this.requestTypes = new MediaType[this.requests.length][];
+            for (int i = 0; i < this.requests.length; i++) {
+                Set<MediaType> allowed = this.requests[i]
+                        .getAllowedRequestMediaTypes();
+                requestTypes[i] = allowed.toArray(new MediaType[allowed.size()]);
+            }
+            this.responses = responses.toArray(
+                    new ResourceMethodResponse<?>[responses.size()]);
+            this.responseTypes = new MediaType[this.responses.length][];
+            for (int i = 0; i < this.responses.length; i++) {
+                Set<MediaType> supported = this.responses[i]
+                        .getSupportedResponseMediaTypes();
+                responseTypes[i] = supported.toArray(
+                        new MediaType[supported.size()]);
+            }
+        }
+
+        Set<ResourceMethodRequest<?>> negotiateRequests(MediaType mediaType) {
+            Set<ResourceMethodRequest<?>> possibleRequests = new HashSet<>();
+            for (int i = 0; i < requests.length; i++) {
+                if (mediaType.isCompatibleTo(requestTypes[i])) {
+                    possibleRequests.add(requests[i]);
+                }
+            }
+            return Collections.unmodifiableSet(possibleRequests);
+        }
+
+        Set<ResourceMethodResponse<?>> negotiateResponses(MediaType mediaType) {
+            Set<ResourceMethodResponse<?>> possibleResponses = new HashSet<>();
+            for (int i = 0; i < responses.length; i++) {
+                if (mediaType.isCompatibleTo(responseTypes[i])) {
+                    possibleResponses.add(responses[i]);
+                }
+            }
+            return Collections.unmodifiableSet(possibleResponses);
+        }
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.metadata;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * the result of routing a path to a resource: the matched resource together
+ * with the path parameter values extracted while matching.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public final class ResourceMatch {
+
+    private final Resource resource;
+    private final Map<String, String> pathParameterValues;
+
+    public ResourceMatch(Resource resource,
+                         Map<String, String> pathParameterValues) {
+        this.resource = resource;
+        this.pathParameterValues = Collections.unmodifiableMap(
+                pathParameterValues);
+    }
+
+    /**
+     * routes the path to a resource of the given application. The path is
+     * matched only once, if the application is an {@link AbstractApplication},
+     * otherwise the path parameter values are extracted from the resource
+     * found by {@link Application#findResource(java.lang.String)}.
+     *
+     * @param application
+     * @param path
+     * @return
+     * @throws ResourceNotFoundException
+     */
+    public static ResourceMatch of(Application application, String path)
+            throws ResourceNotFoundException {
+        if (application instanceof AbstractApplication) {
+            return ((AbstractApplication) application).matchResource(path);
+        }
+        Resource resource = application.findResource(path);
+        try {
+            return new ResourceMatch(resource, resource.getPath()
+                    .getPathParameterValues(path));
+        } catch (ResourcePathNotMatchException ex) {
+            throw new ResourceNotFoundException(
+                    "cannot extract path parameters from path: " + path
+                    + " for resource: " + resource.getName(), ex);
+        }
+    }
+
+    /**
+     * the resource that matches the path.
+     *
+     * @return
+     */
+    public Resource getResource() {
+        return resource;
+    }
+
+    /**
+     * the decoded path parameter values extracted from the path.
+     *
+     * @return
+     */
+    public Map<String, String> getPathParameterValues() {
+        return pathParameterValues;
+    }
+}
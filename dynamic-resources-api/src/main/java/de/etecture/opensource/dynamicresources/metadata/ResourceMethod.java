@@ -79,6 +79,22 @@ public interface ResourceMethod {
      */
     Set<String> getAllowedRoleNames();
 
+    /**
+     * returns the number of seconds, the responses of this method may be
+     * cached.
+     *
+     * @return 0, if the responses must not be cached.
+     */
+    int getCacheSeconds();
+
+    /**
+     * returns whether identical GET requests, that arrive concurrently, may
+     * share one execution.
+     *
+     * @return
+     */
+    boolean isCoalesced();
+
     /**
      * the requests, this resource-method will consume.
      * <p>
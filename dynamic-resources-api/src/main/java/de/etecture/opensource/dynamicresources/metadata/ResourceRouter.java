@@ -0,0 +1,325 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.metadata;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * a segment based routing trie for the resources of an application.
+ * <p>
+ * the uri templates of the resources are split into their path segments once.
+ * Lookups walk the segments of the requested path, trying literal segments
+ * first, then segments with a custom <code>{name:regex}</code> and finally
+ * plain <code>{name}</code> parameters. So the cost of a lookup depends on the
+ * depth of the path and not on the number of resources. The path parameter
+ * values are extracted while routing.
+ * <p>
+ * templates with a custom regex that may span more than one segment cannot be
+ * put into the trie. They are matched by their {@link ResourcePath} as before.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public final class ResourceRouter {
+
+    private static final Pattern GROUP_PATTERN = Pattern.compile(
+            "\\{(\\w+?)(?:\\:(.+?))?\\}");
+    private static final Pattern PARAMETER_PATTERN = Pattern.compile(
+            "^\\{(\\w+?)\\}$");
+    private final String base;
+    private final Node root = new Node(null);
+    private final List<Resource> unrouted = new ArrayList<>();
+
+    public ResourceRouter(String base, Collection<? extends Resource> resources) {
+        this.base = base;
+        for (Resource resource : resources) {
+            add(resource);
+        }
+    }
+
+    /**
+     * returns the match for the given uri or null, if no resource matches.
+     * <p>
+     * the uri may start with the base of the application and may contain a
+     * query string.
+     *
+     * @param uri
+     * @return
+     */
+    public ResourceMatch route(String uri) {
+        String path = uri;
+        if (base != null && path.startsWith(base)) {
+            path = path.substring(base.length());
+        }
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        String[] segments = split(path);
+        Route route = root.match(segments, 0);
+        if (route != null) {
+            return route.toMatch(segments);
+        }
+        // check the templates that are not part of the trie.
+        for (Resource resource : unrouted) {
+            if (resource.getPath().matches(uri)) {
+                try {
+                    return new ResourceMatch(resource, resource.getPath()
+                            .getPathParameterValues(uri));
+                } catch (ResourcePathNotMatchException ex) {
+                    // try the next one...
+                }
+            }
+        }
+        return null;
+    }
+
+    private void add(Resource resource) {
+        String template = resource.getPath().toString();
+        // custom regexes that may cross a '/' cannot be split into segments.
+        Matcher matcher = GROUP_PATTERN.matcher(template);
+        while (matcher.find()) {
+            if (matcher.group(2) != null && spansSegments(matcher.group(2))) {
+                unrouted.add(resource);
+                return;
+            }
+        }
+        String[] templateSegments = split(template);
+        Segment[] segments = new Segment[templateSegments.length];
+        Node node = root;
+        for (int i = 0; i < templateSegments.length; i++) {
+            segments[i] = new Segment(templateSegments[i]);
+            node = node.child(segments[i]);
+        }
+        if (node.route == null) {
+            node.route = new Route(resource, segments);
+        } else {
+            // the same template twice, so keep the first one.
+            unrouted.add(resource);
+        }
+    }
+
+    private static boolean spansSegments(String regex) {
+        return regex.indexOf('/') >= 0 || Pattern.compile(regex).matcher("/")
+                .find();
+    }
+
+    private static String[] split(String path) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = path.indexOf('/'); i >= 0; i = path.indexOf('/', start)) {
+            segments.add(path.substring(start, i));
+            start = i + 1;
+        }
+        segments.add(path.substring(start));
+        return segments.toArray(new String[segments.size()]);
+    }
+
+    private static String decode(String string) {
+        try {
+            return URLDecoder.decode(string, "UTF-8");
+        } catch (UnsupportedEncodingException ex) {
+            return string;
+        }
+    }
+
+    /**
+     * a parsed segment of an uri template.
+     */
+    private static final class Segment {
+
+        private final String template;
+        private final String parameterName;
+        private final Pattern pattern;
+        private final List<String> parameterNames = new ArrayList<>();
+
+        Segment(String template) {
+            this.template = template;
+            Matcher parameter = PARAMETER_PATTERN.matcher(template);
+            if (template.indexOf('{') < 0) {
+                this.parameterName = null;
+                this.pattern = null;
+            } else if (parameter.matches()) {
+                this.parameterName = parameter.group(1);
+                this.pattern = null;
+            } else {
+                this.parameterName = null;
+                Matcher matcher = GROUP_PATTERN.matcher(template);
+                StringBuilder buffer = new StringBuilder();
+                int last = 0;
+                while (matcher.find()) {
+                    if (matcher.start() > last) {
+                        buffer.append(Pattern.quote(template.substring(last,
+                                matcher.start())));
+                    }
+                    String name = matcher.group(1);
+                    parameterNames.add(name);
+                    String regex = matcher.group(2);
+                    if (regex == null || regex.trim().isEmpty()) {
+                        regex = "[^/]+";
+                    }
+                    buffer.append("(?<").append(name).append('>').append(regex)
+                            .append(')');
+                    last = matcher.end();
+                }
+                if (last < template.length()) {
+                    buffer.append(Pattern.quote(template.substring(last)));
+                }
+                this.pattern = Pattern.compile(buffer.toString());
+            }
+        }
+
+        boolean isLiteral() {
+            return parameterName == null && pattern == null;
+        }
+
+        void extract(String value, Map<String, String> values) {
+            if (parameterName != null) {
+                values.put(parameterName, decode(value));
+            } else if (pattern != null) {
+                Matcher matcher = pattern.matcher(value);
+                if (matcher.matches()) {
+                    for (String name : parameterNames) {
+                        values.put(name, decode(matcher.group(name)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * a resource that ends at a node of the trie.
+     */
+    private static final class Route {
+
+        private final Resource resource;
+        private final Segment[] segments;
+
+        Route(Resource resource, Segment[] segments) {
+            this.resource = resource;
+            this.segments = segments;
+        }
+
+        ResourceMatch toMatch(String[] values) {
+            Map<String, String> parameters = new HashMap<>();
+            for (int i = 0; i < segments.length; i++) {
+                segments[i].extract(values[i], parameters);
+            }
+            return new ResourceMatch(resource, parameters);
+        }
+    }
+
+    /**
+     * a node within the trie.
+     */
+    private static final class Node {
+
+        private final Pattern pattern;
+        private final Map<String, Node> literals = new HashMap<>();
+        private final Map<String, Node> patterns = new HashMap<>();
+        private final List<Node> patternOrder = new ArrayList<>();
+        private Node parameter;
+        private Route route;
+
+        Node(Pattern pattern) {
+            this.pattern = pattern;
+        }
+
+        Node child(Segment segment) {
+            Node child;
+            if (segment.isLiteral()) {
+                child = literals.get(segment.template);
+                if (child == null) {
+                    child = new Node(null);
+                    literals.put(segment.template, child);
+                }
+            } else if (segment.pattern == null) {
+                if (parameter == null) {
+                    parameter = new Node(null);
+                }
+                child = parameter;
+            } else {
+                child = patterns.get(segment.pattern.pattern());
+                if (child == null) {
+                    child = new Node(segment.pattern);
+                    patterns.put(segment.pattern.pattern(), child);
+                    patternOrder.add(child);
+                }
+            }
+            return child;
+        }
+
+        Route match(String[] segments, int index) {
+            if (index == segments.length) {
+                return route;
+            }
+            String segment = segments[index];
+            Route found;
+            Node literal = literals.get(segment);
+            if (literal != null) {
+                found = literal.match(segments, index + 1);
+                if (found != null) {
+                    return found;
+                }
+            }
+            for (Node child : patternOrder) {
+                if (child.pattern.matcher(segment).matches()) {
+                    found = child.match(segments, index + 1);
+                    if (found != null) {
+                        return found;
+                    }
+                }
+            }
+            if (parameter != null && !segment.isEmpty()) {
+                return parameter.match(segments, index + 1);
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * a thread-safe cache with an upper bound for the number of entries.
+ * <p>
+ * if the cache is full, an arbitrary entry is evicted before a new one is
+ * added. This is sufficient for caches of derived lookup keys, where the
+ * number of distinct keys is normally small and a miss is only a recompute.
+ *
+ * @param <K>
+ * @param <V>
+ * @author rhk
+ * @version
+ * @since
+ */
+public class BoundedCache<K, V> {
+
+    private final ConcurrentMap<K, V> entries;
+    private final int maxSize;
+
+    public BoundedCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException(
+                    "the maximum size of a cache must be positive.");
+        }
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.min(maxSize, 64));
+    }
+
+    /**
+     * returns the cached value or null, if there is none.
+     *
+     * @param key
+     * @return
+     */
+    public V get(K key) {
+        return entries.get(key);
+    }
+
+    /**
+     * adds the value, if there is no value for the key yet.
+     *
+     * @param key
+     * @param value
+     * @return the value that is cached now for the key.
+     */
+    public V putIfAbsent(K key, V value) {
+        V current = entries.get(key);
+        if (current != null) {
+            // the key is present, so there is nothing to evict for it.
+            return current;
+        }
+        if (entries.size() >= maxSize) {
+            Iterator<K> it = entries.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        V existing = entries.putIfAbsent(key, value);
+        return existing == null ? value : existing;
+    }
+
+    /**
+     * removes the value for the given key.
+     *
+     * @param key
+     */
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * removes all entries.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * the current number of entries.
+     *
+     * @return
+     */
+    public int size() {
+        return entries.size();
+    }
+}
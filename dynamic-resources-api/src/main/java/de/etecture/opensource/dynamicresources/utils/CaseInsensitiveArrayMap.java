@@ -0,0 +1,101 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.utils;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * an {@link ArrayMap} with string keys, that are compared ignoring their case,
+ * as it is needed for the names of http headers.
+ * <p>
+ * the keys are kept as they were added and are compared without creating
+ * lower case copies. Like the arrays, the overflow map accepts a null key and
+ * looking up a key, that is no string, finds nothing.
+ *
+ * @param <V>
+ * @author rhk
+ * @version
+ * @since
+ */
+public class CaseInsensitiveArrayMap<V> extends ArrayMap<String, V> {
+
+    /**
+     * orders the null key first, then the strings ignoring their case and then
+     * all other keys, that are never equal to a string.
+     */
+    private static final Comparator<Object> KEY_ORDER = new Comparator<Object>() {
+        @Override
+        public int compare(Object key, Object other) {
+            if (key == other) {
+                return 0;
+            } else if (key == null) {
+                return -1;
+            } else if (other == null) {
+                return 1;
+            } else if (key instanceof String && other instanceof String) {
+                return String.CASE_INSENSITIVE_ORDER.compare((String) key,
+                        (String) other);
+            } else if (key instanceof String) {
+                return -1;
+            } else if (other instanceof String) {
+                return 1;
+            } else if (key.equals(other)) {
+                return 0;
+            }
+            return Integer.compare(System.identityHashCode(key), System
+                    .identityHashCode(other));
+        }
+    };
+
+    @Override
+    protected boolean keyEquals(Object key, Object other) {
+        if (key instanceof String && other instanceof String) {
+            return ((String) key).equalsIgnoreCase((String) other);
+        }
+        return super.keyEquals(key, other);
+    }
+
+    @Override
+    protected Map<String, V> createOverflowMap() {
+        return new TreeMap<>(KEY_ORDER);
+    }
+}
@@ -42,14 +42,15 @@ package de.etecture.opensource.dynamicresources.utils;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponseHeader;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 /**
+ * collects the values of the response headers.
+ * <p>
+ * the header names are compared ignoring their case.
  *
  * @author rhk
  * @version
@@ -57,7 +58,7 @@ import java.util.Set;
  */
 public class HeaderValueMap extends AbstractMap<String, List<Object>> {
 
-    private static class HeaderValue extends ArrayList<Object> {
+    private static class HeaderValue extends ValueList<Object> {
         private static final long serialVersionUID = 1L;
 
         private final ResourceMethodResponseHeader.Type type;
@@ -70,11 +71,13 @@ public class HeaderValueMap extends AbstractMap<String, List<Object>> {
             return type;
         }
     }
-    private final Map<String, HeaderValue> headerValues = new HashMap<>();
+    private final Map<String, HeaderValue> headerValues
+            = new CaseInsensitiveArrayMap<>();
 
     public ResourceMethodResponseHeader.Type getValueType(String key) {
-        if (headerValues.containsKey(key)) {
-            return headerValues.get(key).getType();
+        HeaderValue values = headerValues.get(key);
+        if (values != null) {
+            return values.getType();
         } else {
             return null;
         }
@@ -111,6 +114,21 @@ public class HeaderValueMap extends AbstractMap<String, List<Object>> {
         values.addAll(value);
     }
 
+    @Override
+    public List<Object> get(Object key) {
+        return headerValues.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return headerValues.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return headerValues.size();
+    }
+
     @Override
     public List<Object> put(String key,
             List<Object> value) {
@@ -0,0 +1,180 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core;
+
+import de.etecture.opensource.dynamicresources.api.StatusCodes;
+import de.etecture.opensource.dynamicresources.utils.BufferPool;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * the state of a request that is executed asynchronously by a
+ * {@link DynamicResourcesServlet}.
+ * <p>
+ * either the execution or the container (by a timeout or an error) answers the
+ * request. Whoever claims the response first writes it, the other one leaves
+ * the response untouched.
+ * <p>
+ * the execution writes its response to a {@link NonBlockingOutput}, so the
+ * request is completed when the output is drained.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class AsyncExecution implements AsyncListener {
+
+    private final AsyncContext context;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final NonBlockingOutput output;
+    private boolean claimedByExecution;
+
+    AsyncExecution(final AsyncContext context, BufferPool pool,
+                   int maxQueuedBuffers) {
+        this.context = context;
+        this.output = new NonBlockingOutput((HttpServletResponse) context
+                .getResponse(), pool, maxQueuedBuffers, new Runnable() {
+            @Override
+            public void run() {
+                context.complete();
+            }
+        });
+    }
+
+    /**
+     * the stream to write the response to.
+     *
+     * @return
+     */
+    NonBlockingOutput getOutput() {
+        return output;
+    }
+
+    /**
+     * claims the response for the execution.
+     *
+     * @return false, if the request already timed out or failed.
+     */
+    boolean claim() {
+        if (!claimedByExecution) {
+            claimedByExecution = claimed.compareAndSet(false, true);
+        }
+        return claimedByExecution;
+    }
+
+    /**
+     * true, if the request was already answered by the container, e.g.
+     * because it timed out, so the execution can be skipped.
+     *
+     * @return
+     */
+    boolean isAbandoned() {
+        return !claimedByExecution && claimed.get();
+    }
+
+    /**
+     * completes the request after the execution is done. If the response is
+     * written, the request is completed, when the output is drained.
+     */
+    void complete() {
+        if (!claim()) {
+            return;
+        }
+        if (output.isOpened()) {
+            try {
+                output.close();
+            } catch (IOException ex) {
+                output.abort(ex);
+            }
+        } else {
+            context.complete();
+        }
+    }
+
+    /**
+     * rejects the request, if it is not yet answered by the execution.
+     *
+     * @param status
+     * @param message
+     * @throws IOException
+     */
+    void reject(int status, String message) throws IOException {
+        if (claimed.compareAndSet(false, true)) {
+            try {
+                ((HttpServletResponse) context.getResponse()).sendError(status,
+                        message);
+            } finally {
+                context.complete();
+            }
+        }
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) throws IOException {
+        if (claimed.get()) {
+            // the response is already written, but the client is too slow.
+            output.abort(new IOException("the response timed out."));
+        } else {
+            reject(StatusCodes.GATEWAY_TIMEOUT,
+                    "the execution of the resource timed out.");
+        }
+    }
+
+    @Override
+    public void onError(AsyncEvent event) throws IOException {
+        if (claimed.compareAndSet(false, true)) {
+            context.complete();
+        } else {
+            output.abort(event.getThrowable());
+        }
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) throws IOException {
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) throws IOException {
+    }
+}
@@ -76,6 +76,12 @@ public class DefaultUriBuilder implements UriBuilder {
                 path = "/" + path;
             }
         }
+        // the request context is not active, if the request is executed
+        // asynchronously, so prefer the data captured by the servlet.
+        RequestData data = RequestData.current();
+        if (data != null) {
+            return data.getBaseUri() + path;
+        }
         return request.getScheme() + "://" + request.getServerName() + ":"
                 + request.getServerPort() + request.getContextPath() + path;
     }
@@ -39,6 +39,7 @@
  */
 package de.etecture.opensource.dynamicresources.core;
 
+import de.etecture.opensource.dynamicresources.api.HttpMethods;
 import de.etecture.opensource.dynamicresources.api.MediaType;
 import de.etecture.opensource.dynamicresources.api.ResourceException;
 import de.etecture.opensource.dynamicresources.api.Response;
@@ -47,8 +48,11 @@ import de.etecture.opensource.dynamicresources.api.StatusCodes;
 import de.etecture.opensource.dynamicresources.api.accesspoints.ApplicationAccessor;
 import de.etecture.opensource.dynamicresources.api.accesspoints.Applications;
 import de.etecture.opensource.dynamicresources.api.accesspoints.MethodAccessor;
+import de.etecture.opensource.dynamicresources.api.accesspoints.ResourceAccessor;
+import de.etecture.opensource.dynamicresources.core.executors.ResourceMethodExecutions;
 import de.etecture.opensource.dynamicresources.core.mapping.RequestReaders;
 import de.etecture.opensource.dynamicresources.core.mapping.ResponseWriters;
+import de.etecture.opensource.dynamicresources.core.mapping.mime.AcceptHeader;
 import de.etecture.opensource.dynamicresources.core.mapping.mime.MediaTypeExpression;
 import de.etecture.opensource.dynamicresources.metadata.ApplicationNotFoundException;
 import de.etecture.opensource.dynamicresources.metadata.MediaTypeAmbigiousException;
@@ -59,13 +63,28 @@ import de.etecture.opensource.dynamicresources.metadata.Resource;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethod;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodNotFoundException;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodRequest;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponse;
 import de.etecture.opensource.dynamicresources.metadata.ResourceNotFoundException;
 import de.etecture.opensource.dynamicresources.metadata.ResponseTypeNotSupportedException;
+import de.etecture.opensource.dynamicresources.utils.BoundedCache;
+import de.etecture.opensource.dynamicresources.utils.BufferPool;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
 import javax.inject.Inject;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.servlet.AsyncContext;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServlet;
@@ -91,6 +110,90 @@ public class DynamicResourcesServlet extends HttpServlet {
      */
     public static final String APPLICATION_NAME = "application-name";
 
+    /**
+     * the name of the setting for the number of bytes a response is buffered
+     * to send it with a Content-Length. Larger responses are streamed chunked.
+     */
+    public static final String RESPONSE_STREAMING_THRESHOLD =
+            "response-streaming-threshold";
+    private static final int DEFAULT_STREAMING_THRESHOLD = 64 * 1024;
+    private static final int RESPONSE_BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 64;
+    private static final int MAX_CACHED_NEGOTIATIONS = 1024;
+
+    /**
+     * the name of the setting for the level of the request trace, e.g.
+     * <code>FINE</code>. If not specified, the level is taken from the logging
+     * configuration of the logger
+     * <code>DynamicResourcesServlet.&lt;application-name&gt;</code>.
+     */
+    public static final String REQUEST_TRACE_LEVEL = "request-trace-level";
+
+    /**
+     * the name of the setting to execute the requests asynchronously. If
+     * <code>true</code>, the resources are invoked and their responses are
+     * written by the executor, so the thread of the container is released.
+     * <p>
+     * the executor has no active request context. The user and the data of
+     * the request are captured before and provided by {@link RequestSecurity}
+     * and the {@link de.etecture.opensource.dynamicresources.api.UriBuilder},
+     * but beans, that inject the {@link HttpServletRequest} or are request
+     * scoped, cannot be used by the resources.
+     */
+    public static final String ASYNC = "async";
+
+    /**
+     * the name of the setting for the JNDI name of the executor for the
+     * asynchronous execution. Defaults to the default managed executor service
+     * of the container.
+     */
+    public static final String ASYNC_EXECUTOR = "async-executor";
+
+    /**
+     * the name of the setting for the number of threads of the executor, if
+     * the executor cannot be looked up.
+     */
+    public static final String ASYNC_POOL_SIZE = "async-pool-size";
+
+    /**
+     * the name of the setting for the milliseconds an asynchronous execution
+     * may take, before it is answered with 504 (Gateway Timeout).
+     */
+    public static final String ASYNC_TIMEOUT = "async-timeout";
+    /**
+     * the name of the setting for the number of buffers an asynchronous
+     * response may queue, before the writer has to wait for the client.
+     */
+    public static final String ASYNC_OUTPUT_BUFFERS = "async-output-buffers";
+    private static final int DEFAULT_ASYNC_OUTPUT_BUFFERS = 16;
+    /**
+     * the name of the setting for the maximum number of bytes of a request
+     * body. Larger requests are rejected with 413 (Request Entity Too Large).
+     * Defaults to no limit, but to 8 MiB, if the requests are executed
+     * asynchronously, since their bodies are buffered in memory before the
+     * execution starts. A negative value disables the limit.
+     */
+    public static final String MAX_REQUEST_BODY_SIZE = "max-request-body-size";
+    private static final long DEFAULT_ASYNC_MAX_REQUEST_BODY_SIZE = 8L * 1024
+            * 1024;
+    private static final String DEFAULT_ASYNC_EXECUTOR =
+            "java:comp/DefaultManagedExecutorService";
+    private static final long DEFAULT_ASYNC_TIMEOUT = 30000L;
+    /**
+     * the name of the setting for the maximum number of bytes of the cached
+     * responses. The responses are only cached for the resource methods, that
+     * define a cache duration. A size of 0 disables the cache.
+     */
+    public static final String RESPONSE_CACHE_SIZE = "response-cache-size";
+
+    /**
+     * the name of the setting for the milliseconds an identical GET request
+     * waits for the coalesced one, before another request takes over its
+     * execution. Defaults to 10 seconds.
+     */
+    public static final String COALESCING_TIMEOUT = "coalescing-timeout";
+    private static final long DEFAULT_RESPONSE_CACHE_SIZE = 16L * 1024 * 1024;
+
     /**
      * resolves a writer for a given type, mediatype and version.
      */
@@ -109,6 +212,13 @@ public class DynamicResourcesServlet extends HttpServlet {
     @Inject
     Applications applications;
 
+    /**
+     * counts the modifications, that invalidate the cached responses, and
+     * coalesces the identical requests.
+     */
+    @Inject
+    ResourceMethodExecutions executions;
+
     /**
      * these are the resources of the application. they are resolved in the
      * {@link HttpServlet#init()} method for the application specified by an
@@ -117,6 +227,42 @@ public class DynamicResourcesServlet extends HttpServlet {
      */
     private ApplicationAccessor resources;
 
+    /**
+     * the pool of the buffers to serialize the responses into.
+     */
+    private final BufferPool responseBuffers = new BufferPool(
+            RESPONSE_BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    private int streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+
+    /**
+     * the pool of the buffers to ingest the request bodies asynchronously.
+     */
+    private final BufferPool requestBuffers = new BufferPool(
+            RESPONSE_BUFFER_SIZE, MAX_POOLED_BUFFERS);
+    private long maxRequestBodySize = -1L;
+
+    /**
+     * the negotiated media types per resource method and Accept header.
+     */
+    private final BoundedCache<Negotiation, Negotiation> negotiations =
+            new BoundedCache<>(MAX_CACHED_NEGOTIATIONS);
+
+    /**
+     * the serialized responses of the cacheable GET requests or null, if the
+     * cache is disabled.
+     */
+    private ResponseCache responseCache;
+    private RequestTrace trace;
+
+    /**
+     * the executor for the asynchronous execution or null, if the requests are
+     * executed synchronously.
+     */
+    private ExecutorService asyncExecutor;
+    private boolean ownsAsyncExecutor;
+    private long asyncTimeout = DEFAULT_ASYNC_TIMEOUT;
+    private int asyncOutputBuffers = DEFAULT_ASYNC_OUTPUT_BUFFERS;
+
     @Override
     public void init(ServletConfig config) throws ServletException {
         super.init(config);
@@ -135,54 +281,284 @@ public class DynamicResourcesServlet extends HttpServlet {
                         "tries to register a servlet for an application that does not exists!",
                         ex);
             }
+            ServletSettings settings = new ServletSettings(config,
+                                                           applicationName);
+            this.streamingThreshold = settings.getInt(
+                    RESPONSE_STREAMING_THRESHOLD,
+                    DEFAULT_STREAMING_THRESHOLD);
+            boolean async = settings.getBoolean(ASYNC, false);
+            this.maxRequestBodySize = settings.getLong(MAX_REQUEST_BODY_SIZE,
+                    async ? DEFAULT_ASYNC_MAX_REQUEST_BODY_SIZE : -1L);
+            this.trace = new RequestTrace(applicationName, settings.getString(
+                    REQUEST_TRACE_LEVEL, null));
+            long cacheSize = settings.getLong(RESPONSE_CACHE_SIZE,
+                                              DEFAULT_RESPONSE_CACHE_SIZE);
+            if (cacheSize > 0) {
+                this.responseCache = new ResponseCache(cacheSize);
+            }
+            long coalescingTimeout = settings.getLong(COALESCING_TIMEOUT, -1L);
+            if (coalescingTimeout >= 0) {
+                executions.setCoalescingTimeout(resources.getMetadata(),
+                                                coalescingTimeout);
+            }
+            if (async) {
+                initAsync(settings);
+            }
         }
     }
 
+    private void initAsync(ServletSettings settings) {
+        this.asyncTimeout = settings.getLong(ASYNC_TIMEOUT,
+                                             DEFAULT_ASYNC_TIMEOUT);
+        this.asyncOutputBuffers = settings.getInt(ASYNC_OUTPUT_BUFFERS,
+                                                  DEFAULT_ASYNC_OUTPUT_BUFFERS);
+        String executorName = settings.getString(ASYNC_EXECUTOR,
+                                                 DEFAULT_ASYNC_EXECUTOR);
+        try {
+            this.asyncExecutor = (ExecutorService) new InitialContext().lookup(
+                    executorName);
+        } catch (NamingException | ClassCastException ex) {
+            log(String.format(
+                    "no executor found at: %s, use an own pool instead.",
+                    executorName));
+            this.asyncExecutor = Executors.newFixedThreadPool(settings.getInt(
+                    ASYNC_POOL_SIZE, Runtime.getRuntime().availableProcessors()
+                    * 4));
+            this.ownsAsyncExecutor = true;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (ownsAsyncExecutor) {
+            asyncExecutor.shutdown();
+        }
+        super.destroy();
+    }
+
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse resp)
             throws ServletException, IOException {
-        log(String.format("handle: %S %s in application: %s", req.getMethod(),
-                          req.getRequestURI(), resources.getMetadata().getName()));
+        trace.log(Level.FINE, "handle: {0} {1}", req.getMethod(), req
+                  .getRequestURI());
         resp.setCharacterEncoding("UTF-8");
+        if (maxRequestBodySize >= 0 && req.getContentLengthLong()
+                > maxRequestBodySize) {
+            // reject before anything of the body is read.
+            trace.log(Level.FINE, "request body of: {0} {1} is too large",
+                      req.getMethod(), req.getRequestURI());
+            resp.sendError(StatusCodes.REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        if (asyncExecutor == null) {
+            handle(RequestData.of(req), req, resp, null, null);
+        } else {
+            handleAsync(req, resp);
+        }
+    }
+
+    /**
+     * starts the asynchronous execution of the request. If the request has a
+     * body, it is ingested without blocking before the request is handed over
+     * to the executor, so a slow upload does not occupy any thread.
+     *
+     * @param req
+     * @param resp
+     * @throws IOException
+     */
+    private void handleAsync(final HttpServletRequest req,
+                             final HttpServletResponse resp) throws IOException {
+        // the request may be recycled, before the execution starts.
+        final RequestData data = RequestData.copy(req, resources.getMetadata()
+                                                  .getDeclaredRoleNames());
+        final AsyncContext context = req.startAsync(req, resp);
+        context.setTimeout(asyncTimeout);
+        final AsyncExecution execution = new AsyncExecution(context,
+                                                            responseBuffers,
+                                                            asyncOutputBuffers);
+        context.addListener(execution);
+        if (req.getContentLengthLong() > 0 || req.getHeader("Transfer-Encoding")
+                != null) {
+            new RequestBody(req.getInputStream(), requestBuffers,
+                            maxRequestBodySize, new RequestBody.Listener() {
+                @Override
+                public void onBody(InputStream body) {
+                    execute(data, resp, execution, body);
+                }
+
+                @Override
+                public void onTooLarge(long maxSize) {
+                    trace.log(Level.FINE,
+                              "request body of: {0} {1} is too large",
+                              data.getMethod(), data.getRequestURI());
+                    rejectQuietly(execution,
+                                  StatusCodes.REQUEST_ENTITY_TOO_LARGE);
+                }
+
+                @Override
+                public void onError(Throwable cause) {
+                    trace.log(Level.FINE, cause,
+                              "request body of: {0} {1} cannot be read",
+                              data.getMethod(), data.getRequestURI());
+                    rejectQuietly(execution, StatusCodes.BAD_REQUEST);
+                }
+            }).start();
+        } else {
+            execute(data, resp, execution, null);
+        }
+    }
+
+    /**
+     * hands the request over to the executor.
+     *
+     * @param data the copied data of the request.
+     * @param resp
+     * @param execution
+     * @param body the ingested body or null.
+     */
+    private void execute(final RequestData data,
+                         final HttpServletResponse resp,
+                         final AsyncExecution execution, final InputStream body) {
+        final String methodName = data.getMethod();
+        final String uri = data.getRequestURI();
+        try {
+            asyncExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (execution.isAbandoned()) {
+                            // the request timed out while it was queued.
+                            trace.log(Level.FINE,
+                                      "skip the timed out execution of: {0} {1}",
+                                      methodName, uri);
+                        } else {
+                            handle(data, null, resp, execution, body);
+                        }
+                    } catch (ServletException | IOException | RuntimeException ex) {
+                        trace.log(Level.WARNING, ex,
+                                  "asynchronous execution of: {0} {1} failed",
+                                  methodName, uri);
+                        rejectQuietly(execution,
+                                      StatusCodes.INTERNAL_SERVER_ERROR);
+                    } finally {
+                        closeQuietly(body);
+                        execution.complete();
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            trace.log(Level.WARNING, ex,
+                      "asynchronous execution of: {0} {1} was rejected",
+                      methodName, uri);
+            closeQuietly(body);
+            rejectQuietly(execution, StatusCodes.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private static void closeQuietly(InputStream body) {
+        if (body != null) {
+            try {
+                body.close();
+            } catch (IOException ex) {
+                // the chunks are released anyway.
+            }
+        }
+    }
+
+    private void rejectQuietly(AsyncExecution execution, int status) {
         try {
-            executeResource(req, resp);
+            execution.reject(status, null);
+        } catch (IOException ex) {
+            trace.log(Level.FINE, ex, "cannot send status: {0}", status);
+        }
+    }
+
+    /**
+     * handles the request and maps the exceptions to status codes.
+     *
+     * @param data
+     * @param req the request or null, if it is executed asynchronously.
+     * @param resp
+     * @param execution the state of the asynchronous execution or null, if
+     * the request is handled synchronously.
+     * @param body the ingested body or null, if the body is read from the
+     * request.
+     * @throws ServletException
+     * @throws IOException
+     */
+    private void handle(RequestData data, HttpServletRequest req,
+                        HttpServletResponse resp, AsyncExecution execution,
+                        InputStream body) throws ServletException, IOException {
+        data.bind();
+        try {
+            executeResource(data, req, resp, execution, body);
+        } catch (RequestBodyTooLargeException ex) {
+            trace.log(Level.FINE, ex, "request body of: {0} {1} is too large",
+                      data.getMethod(), data.getRequestURI());
+            sendError(resp, execution, StatusCodes.REQUEST_ENTITY_TOO_LARGE, ex
+                      .getMessage());
         } catch (ResourceNotFoundException | ApplicationNotFoundException ex) {
-            log(String.format("resource or application not found for: %s",
-                              req.getRequestURI()), ex);
-            resp.sendError(StatusCodes.NOT_FOUND, ex.getMessage());
+            trace.log(Level.FINE, ex,
+                      "resource or application not found for: {0} {1}",
+                      data.getMethod(), data.getRequestURI());
+            sendError(resp, execution, StatusCodes.NOT_FOUND, ex.getMessage());
         } catch (ResourceMethodNotFoundException ex) {
-            log(String.format("resource method: %S not found for: %s",
-                              req.getMethod(), req.getRequestURI()), ex);
-            resp.sendError(StatusCodes.METHOD_NOT_ALLOWED, ex.getMessage());
+            trace.log(Level.FINE, ex,
+                      "resource method: {0} not found for: {1}",
+                      data.getMethod(), data.getRequestURI());
+            sendError(resp, execution, StatusCodes.METHOD_NOT_ALLOWED, ex
+                      .getMessage());
         } catch (RequestTypeNotSupportedException ex) {
-            log(String.format("resource method: %S not available for: %s",
-                              req.getMethod(), req.getRequestURI()), ex);
-            resp.sendError(StatusCodes.UNSUPPORTED_MEDIA_TYPE, ex
-                           .getMessage());
+            trace.log(Level.FINE, ex,
+                      "resource method: {0} not available for: {1}",
+                      data.getMethod(), data.getRequestURI());
+            sendError(resp, execution, StatusCodes.UNSUPPORTED_MEDIA_TYPE, ex
+                      .getMessage());
         } catch (MediaTypeNotAllowedException ex) {
-            log(String.format("resource method: %S not available for: %s",
-                              req.getMethod(), req.getRequestURI()), ex);
+            trace.log(Level.FINE, ex,
+                      "resource method: {0} not available for: {1}",
+                      data.getMethod(), data.getRequestURI());
             final String allowed = Arrays.toString(ex.getAllowedMediaTypes()
                     .toArray());
-            log(String
-                    .format("allowed request mediatypes for %S %s are: %s",
-                            req.getMethod(), req.getRequestURI(), allowed));
-            resp.sendError(StatusCodes.UNSUPPORTED_MEDIA_TYPE, "allowed: "
-                           + allowed);
+            sendError(resp, execution, StatusCodes.UNSUPPORTED_MEDIA_TYPE,
+                      "allowed: " + allowed);
         } catch (ResponseTypeNotSupportedException |
                 MediaTypeNotSupportedException ex) {
-            log(String.format("resource method: %S not acceptable for: %s",
-                              req.getMethod(), req.getRequestURI()), ex);
-            resp.sendError(StatusCodes.NOT_ACCEPTABLE, ex.getMessage());
+            trace.log(Level.FINE, ex,
+                      "resource method: {0} not acceptable for: {1}",
+                      data.getMethod(), data.getRequestURI());
+            sendError(resp, execution, StatusCodes.NOT_ACCEPTABLE, ex
+                      .getMessage());
         } catch (ResourceException ex) {
-            log(String.format("resource method: %S for: %s was in error",
-                              req.getMethod(), req.getRequestURI()), ex);
-            resp
-                    .sendError(StatusCodes.UNPROCESSABLE_ENTITY, ex
-                               .getMessage());
+            trace.log(Level.INFO, ex,
+                      "resource method: {0} for: {1} was in error",
+                      data.getMethod(), data.getRequestURI());
+            sendError(resp, execution, StatusCodes.UNPROCESSABLE_ENTITY, ex
+                      .getMessage());
+        } finally {
+            RequestData.unbind();
+        }
+        if (execution == null) {
+            resp.flushBuffer();
         }
-        resp.getWriter().flush();
-        resp.getWriter().close();
+    }
+
+    private static void sendError(HttpServletResponse resp,
+                                  AsyncExecution execution, int status,
+                                  String message) throws IOException {
+        if (claim(execution)) {
+            resp.sendError(status, message);
+        }
+    }
+
+    /**
+     * claims the response before it is written.
+     *
+     * @param execution
+     * @return false, if the asynchronous execution already timed out.
+     */
+    private static boolean claim(AsyncExecution execution) {
+        return execution == null || execution.claim();
     }
 
     @Override
@@ -194,99 +570,201 @@ public class DynamicResourcesServlet extends HttpServlet {
     /**
      * executes the resource.
      * <p>
-     * @param req
+     * @param data
+     * @param req the request or null, if it is executed asynchronously.
      * @param resp
+     * @param execution
+     * @param ingestedBody the body ingested asynchronously or null.
      * @throws ResourceException
      * @throws IOException
      */
-    private void executeResource(HttpServletRequest req,
-                                 HttpServletResponse resp) throws
+    private void executeResource(RequestData data, HttpServletRequest req,
+                                    HttpServletResponse resp,
+                                    AsyncExecution execution,
+                                    InputStream ingestedBody) throws
             ResourceException, IOException {
         // get the contentType
-        final MediaType contentType = getContentType(req);
+        final MediaType contentType = getContentType(data.getContentType());
 
-        // get the acceptedType
-        final MediaType acceptedType = getAcceptedType(req);
+        // get the ranked media types of the Accept header
+        final AcceptHeader accept = AcceptHeader.valueOf(data.getAccept());
 
         // get the path of the request
-        final String path = StringUtils.removeStart(req.getRequestURI(), req
+        final String path = StringUtils.removeStart(data.getRequestURI(), data
                                                     .getContextPath());
 
         // get the method of the request
-        final String methodName = req.getMethod();
+        final String methodName = data.getMethod();
 
-        log(String.format(
-                "search a resource with path: %s with method: %S that produces: %s and consumes: %s",
-                path, methodName, acceptedType, contentType));
+        trace.log(Level.FINER,
+                  "search a resource with path: {0} with method: {1} that consumes: {2}",
+                  path, methodName, contentType);
 
-        // select the accesspoint for the given uri and method.
-        MethodAccessor<?> responses = resources.selectByPathAndMime(path,
-                                                                    methodName,
-                                                                    acceptedType);
+        // select the accesspoint for the given uri and method and negotiate
+        // the media type of the response.
+        final ResourceAccessor resource = resources.selectByPath(path);
+        final MediaType acceptedType = negotiate(resource.getMetadata()
+                .getMethod(methodName), accept);
+        trace.log(Level.FINER, "negotiated: {0} for: {1} {2}", acceptedType,
+                  methodName, path);
+        MethodAccessor<?> responses = resource.method(methodName, acceptedType);
 
-        log(String.format("found resource: %s to handle: %S %s", responses
-                          .getMetadata().getMethod().getResource().getName(),
-                          responses
-                          .getMetadata().getMethod().getName(), path));
+        final ResourceMethod method = responses.getMetadata().getMethod();
+        trace.log(Level.FINER, "found resource: {0} to handle: {1} {2}", method
+                  .getResource().getName(), methodName, path);
+
+        // answer a cached response without invoking the resource method.
+        String cacheKey = null;
+        // the responses of earlier generations render an outdated state.
+        final long generation = executions.getModifications();
+        if (responseCache != null && method.getCacheSeconds() > 0
+                && HttpMethods.GET.equals(methodName)) {
+            cacheKey = ResponseCache.key(path, data.getParameters(),
+                                         acceptedType, data.getSecurity()
+                                         .getIdentity(resources.getMetadata()
+                                                 .getDeclaredRoleNames()));
+            ResponseCache.Entry cached = responseCache.get(cacheKey,
+                                                           generation, System
+                                                           .currentTimeMillis());
+            if (cached != null) {
+                trace.log(Level.FINER, "found cached response for: {0} {1}",
+                          methodName, path);
+                if (claim(execution)) {
+                    writeCachedResponse(cached, resp, execution == null ? null
+                                        : execution.getOutput());
+                }
+                return;
+            }
+        }
 
         // get the request that is responsible for this contentType
-        ResourceMethodRequest requestMeta = responses.getMetadata().getMethod()
-                .getRequest(contentType);
+        ResourceMethodRequest requestMeta = method.getRequest(contentType);
 
         // add the query parameters
-        for (Entry<String, String[]> e : req.getParameterMap().entrySet()) {
-            log(String.format("add query-param '%s' = %s", e.getKey(),
-                              Arrays.toString(e.getValue())));
+        final boolean traceParams = trace.isEnabled(Level.FINEST);
+        for (Entry<String, String[]> e : data.getParameters().entrySet()) {
+            if (traceParams) {
+                trace.log(Level.FINEST, "add query-param ''{0}'' = {1}", e
+                          .getKey(), Arrays.toString(e.getValue()));
+            }
             responses = responses.queryParam(e.getKey(), (Object[]) e
                                              .getValue());
         }
 
         if (requestMeta != null) {
-            log(String.format("read request with type: %s and mimes: %s",
-                              requestMeta.getRequestType().getSimpleName(),
-                              contentType));
-            // read the request body
+            trace.log(Level.FINER, "read request with type: {0} and mimes: {1}",
+                      requestMeta.getRequestType().getSimpleName(),
+                      contentType);
+            // read the request body from the bytes, so byte readers need no
+            // char conversion.
+            InputStream in = ingestedBody != null ? ingestedBody
+                    : req != null ? requestInput(req)
+                    : new ByteArrayInputStream(new byte[0]);
             Object body = requestReaders
-                    .read(requestMeta.getRequestType(), contentType, req
-                          .getReader());
+                    .read(requestMeta.getRequestType(), contentType, in,
+                          getCharset(data.getCharacterEncoding(), contentType));
             responses = responses.body(body);
         }
         // invoke the resource method
-        log(String.format("invoke the resource: %s with method: %S",
-                          responses.getMetadata().getMethod().getResource()
-                          .getName(),
-                          responses.getMetadata().getMethod().getName()));
+        trace.log(Level.FINER, "invoke the resource: {0} with method: {1}",
+                  method.getResource().getName(), methodName);
         Response<?> response = responses.invoke();
         Object entity;
+        boolean failed = false;
         try {
             entity = response.getEntity();
-            log(String.format("got entity: %s for: %S %s", entity, responses
-                              .getMetadata().getMethod().getName(), responses
-                              .getMetadata().getMethod().getResource().getName()));
+            // the entity is only rendered if its level is enabled.
+            trace.log(Level.FINEST, "got entity: {0} for: {1} {2}", entity,
+                      methodName, method.getResource().getName());
         } catch (ResponseException ex) {
             entity = ex.getCause();
-            log(String.format("got exception: %s for: %S %s", entity, responses
-                              .getMetadata().getMethod().getName(), responses
-                              .getMetadata().getMethod().getResource().getName()));
+            failed = true;
+            trace.log(Level.FINER, "got exception: {0} for: {1} {2}", entity,
+                      methodName, method.getResource().getName());
+        }
+        if (claim(execution)) {
+            addResponseHeaders(response, resp);
+            boolean cacheable = cacheKey != null && !failed && response
+                    .getStatus() == StatusCodes.OK;
+            byte[] content = writeResponse(entity, acceptedType, resp,
+                                           execution == null ? null
+                                           : execution.getOutput(), cacheable);
+            if (content != null && executions.getModifications()
+                    == generation) {
+                responseCache.put(cacheKey, generation, response, content,
+                                  method.getCacheSeconds(), System
+                                  .currentTimeMillis());
+            }
         }
-        addResponseHeaders(response, resp);
-        writeResponse(entity, acceptedType, resp);
     }
 
-    private static MediaType getAcceptedType(HttpServletRequest req) {
-        String acceptType = req.getHeader("Accept");
-        if (StringUtils.isBlank(acceptType)) {
-            acceptType = "*/*";
+    private static void writeCachedResponse(ResponseCache.Entry cached,
+                                            HttpServletResponse resp,
+                                            OutputStream sink) throws
+            IOException {
+        resp.setStatus(cached.getStatus());
+        String[] headers = cached.getHeaders();
+        for (int i = 0; i < headers.length; i += 2) {
+            resp.addHeader(headers[i], headers[i + 1]);
         }
-        return new MediaTypeExpression(acceptType);
+        resp.setContentLength(cached.getContent().length);
+        OutputStream out = sink == null ? resp.getOutputStream() : sink;
+        out.write(cached.getContent());
+        out.flush();
     }
 
-    private static MediaType getContentType(HttpServletRequest req) {
-        String contentType = req.getHeader("Content-Type");
+    /**
+     * selects the acceptable media type with the highest rank that is
+     * supported by a response of the method. The outcome is cached per method
+     * and Accept header, even if no media type is acceptable.
+     *
+     * @param method
+     * @param accept
+     * @return
+     * @throws MediaTypeNotSupportedException if no acceptable media type is
+     * supported.
+     */
+    private MediaType negotiate(ResourceMethod method, AcceptHeader accept)
+            throws MediaTypeNotSupportedException {
+        Negotiation key = new Negotiation(method, accept);
+        Negotiation negotiation = negotiations.get(key);
+        if (negotiation == null) {
+            List<MediaType> supported = new ArrayList<>();
+            for (ResourceMethodResponse<?> response : method.getResponses()
+                    .values()) {
+                supported.addAll(response.getSupportedResponseMediaTypes());
+            }
+            key.acceptedType = accept.select(supported.toArray(
+                    new MediaType[supported.size()]));
+            negotiation = negotiations.putIfAbsent(key, key);
+        }
+        if (negotiation.acceptedType == null) {
+            throw new MediaTypeNotSupportedException(method, accept.first());
+        }
+        return negotiation.acceptedType;
+    }
+
+    private static MediaType getContentType(String contentType) {
         if (StringUtils.isBlank(contentType)) {
             contentType = "*/*";
         }
-        return new MediaTypeExpression(contentType);
+        return MediaTypeExpression.valueOf(contentType);
+    }
+
+    private InputStream requestInput(HttpServletRequest req) throws
+            IOException {
+        if (maxRequestBodySize < 0) {
+            return req.getInputStream();
+        }
+        return new BoundedInputStream(req.getInputStream(), maxRequestBodySize);
+    }
+
+    private static Charset getCharset(String encoding,
+                                      MediaType contentType) {
+        if (StringUtils.isBlank(encoding)) {
+            return contentType.encoding();
+        }
+        return Charset.forName(encoding);
     }
 
     private void addResponseHeaders(
@@ -300,17 +778,74 @@ public class DynamicResourcesServlet extends HttpServlet {
         }
     }
 
-    private void writeResponse(Object entity, final MediaType acceptedType,
-                               HttpServletResponse resp) throws
+    /**
+     * serializes the entity into the response.
+     *
+     * @param entity
+     * @param acceptedType
+     * @param resp
+     * @param sink
+     * @param capture true, if the serialized content is needed afterwards.
+     * @return the serialized content, if it was captured and not streamed,
+     * else null.
+     */
+    private byte[] writeResponse(Object entity, final MediaType acceptedType,
+                                 HttpServletResponse resp, OutputStream sink,
+                                 boolean capture)
+            throws
             MediaTypeNotSupportedException,
             MediaTypeAmbigiousException, IOException {
+        byte[] content = null;
         // write the response.
         if (entity != null) {
-            log(String.format("write response with type: %s and mimes: %s",
-                              entity.getClass().getSimpleName(), acceptedType));
-            resp.setContentLength(responseWriters.getContentLength(entity,
-                                                                   acceptedType));
-            responseWriters.write(entity, acceptedType, resp.getWriter());
+            trace.log(Level.FINER, "write response with type: {0} and mimes: {1}",
+                      entity.getClass().getSimpleName(), acceptedType);
+            // serialize once, so the exact byte length is known.
+            ResponseBuffer buffer = new ResponseBuffer(resp, responseBuffers,
+                                                       streamingThreshold, sink);
+            try {
+                responseWriters.write(entity, acceptedType, buffer, Charset
+                                      .forName(resp.getCharacterEncoding()));
+                if (capture) {
+                    content = buffer.toByteArray();
+                }
+                buffer.commit();
+            } finally {
+                buffer.release();
+            }
+        }
+        return content;
+    }
+
+    /**
+     * the negotiated media type for a resource method and an Accept header.
+     * Both are long-living and the Accept headers are interned, so they are
+     * compared by identity.
+     */
+    private static final class Negotiation {
+
+        private final ResourceMethod method;
+        private final AcceptHeader accept;
+        private MediaType acceptedType;
+
+        Negotiation(ResourceMethod method, AcceptHeader accept) {
+            this.method = method;
+            this.accept = accept;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(method) + System
+                    .identityHashCode(accept);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Negotiation)) {
+                return false;
+            }
+            Negotiation other = (Negotiation) obj;
+            return method == other.method && accept == other.accept;
         }
     }
 }
@@ -92,6 +92,8 @@ public class DynamicResourcesServletRegistration {
                     DynamicResourcesServlet.class);
             dn.setInitParameter(DynamicResourcesServlet.APPLICATION_NAME,
                     application.getName());
+            // the servlet decides by its settings to execute asynchronously.
+            dn.setAsyncSupported(true);
             final String mapping =
                     String.format(APPLICATION_MAPPING_TEMPLATE, application
                     .getBase());
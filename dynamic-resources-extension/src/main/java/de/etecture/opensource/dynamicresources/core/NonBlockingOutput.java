@@ -0,0 +1,354 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core;
+
+import de.etecture.opensource.dynamicresources.utils.BufferPool;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * writes the response of an asynchronous execution without blocking the
+ * threads of the container.
+ * <p>
+ * the producer, e.g. a {@link de.etecture.opensource.dynamicresources.api.ResponseWriter},
+ * fills pooled chunks that are queued in a bounded queue. The queue is drained
+ * as long as {@link ServletOutputStream#isReady()} allows, either by the
+ * producer itself or by the container calling
+ * {@link WriteListener#onWritePossible()}. If the queue is full, the producer
+ * waits until the client has consumed a chunk, so a slow client slows down the
+ * producer instead of growing the memory.
+ * <p>
+ * the completion is called once, when the stream is closed and drained or the
+ * output failed.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class NonBlockingOutput extends OutputStream implements WriteListener {
+
+    private final HttpServletResponse response;
+    private final BufferPool pool;
+    private final int maxQueued;
+    private final Runnable completion;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Deque<Chunk> queue = new ArrayDeque<>();
+    private ServletOutputStream out;
+    private byte[] current;
+    private int count;
+    private boolean draining;
+    private boolean rerun;
+    private boolean closed;
+    private boolean completed;
+    private volatile Throwable error;
+    private Chunk inFlight;
+
+    NonBlockingOutput(HttpServletResponse response, BufferPool pool,
+                      int maxQueued, Runnable completion) {
+        this.response = response;
+        this.pool = pool;
+        this.maxQueued = maxQueued;
+        this.completion = completion;
+    }
+
+    /**
+     * true, if anything was written to this stream, so the response is
+     * completed by this stream.
+     *
+     * @return
+     */
+    boolean isOpened() {
+        return out != null || current != null;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureWritable();
+        current[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            ensureWritable();
+            int n = Math.min(len, current.length - count);
+            System.arraycopy(b, off, current, count, n);
+            count += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (count > 0) {
+            enqueue();
+        }
+        if (out != null) {
+            drain();
+        }
+    }
+
+    /**
+     * closes the stream. The response is completed after the queued chunks
+     * are written.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (count > 0) {
+            enqueue();
+        }
+        if (out == null) {
+            open();
+        }
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    /**
+     * aborts the output, e.g. if the request timed out. A waiting producer
+     * fails with an {@link IOException}.
+     *
+     * @param cause
+     */
+    void abort(Throwable cause) {
+        onError(cause);
+    }
+
+    @Override
+    public void onWritePossible() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        boolean complete;
+        lock.lock();
+        try {
+            if (error == null) {
+                error = t;
+            }
+            for (Chunk chunk : queue) {
+                // the chunk that is written right now is released by drain().
+                if (chunk != inFlight) {
+                    pool.release(chunk.bytes);
+                }
+            }
+            queue.clear();
+            notFull.signalAll();
+            complete = !completed;
+            completed = true;
+        } finally {
+            lock.unlock();
+        }
+        if (complete) {
+            completion.run();
+        }
+    }
+
+    /**
+     * the chunk that is filled by the producer is only touched by the
+     * producer, so it is released here or in {@link #enqueue()}, when the
+     * producer notices an error, and not by {@link #onError(Throwable)}.
+     *
+     * @throws IOException
+     */
+    private void ensureWritable() throws IOException {
+        if (current == null) {
+            checkError();
+            current = pool.acquire();
+        } else if (count == current.length) {
+            enqueue();
+            current = pool.acquire();
+        }
+    }
+
+    private void open() throws IOException {
+        out = response.getOutputStream();
+        out.setWriteListener(this);
+    }
+
+    private void enqueue() throws IOException {
+        if (out == null) {
+            open();
+        }
+        boolean queued = false;
+        lock.lock();
+        try {
+            while (error == null && queue.size() >= maxQueued) {
+                notFull.awaitUninterruptibly();
+            }
+            if (error == null) {
+                queue.add(new Chunk(current, count));
+                queued = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        byte[] bytes = current;
+        current = null;
+        count = 0;
+        if (!queued) {
+            pool.release(bytes);
+            checkError();
+        }
+        drain();
+    }
+
+    private void drain() throws IOException {
+        lock.lock();
+        try {
+            checkError();
+            if (draining) {
+                // the draining thread will look again.
+                rerun = true;
+                return;
+            }
+            draining = true;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            while (true) {
+                Chunk chunk;
+                lock.lock();
+                try {
+                    rerun = false;
+                    chunk = queue.peek();
+                    inFlight = chunk;
+                    if (chunk == null) {
+                        draining = false;
+                        if (!closed || completed) {
+                            return;
+                        }
+                        completed = true;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                if (chunk == null) {
+                    completion.run();
+                    return;
+                }
+                if (!out.isReady()) {
+                    boolean orphaned;
+                    boolean retry;
+                    lock.lock();
+                    try {
+                        inFlight = null;
+                        // onError() skipped the chunk, so release it here.
+                        orphaned = queue.peek() != chunk;
+                        retry = rerun;
+                        if (!retry) {
+                            // the container calls onWritePossible() later.
+                            draining = false;
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    if (orphaned) {
+                        pool.release(chunk.bytes);
+                    }
+                    if (!retry) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    out.write(chunk.bytes, 0, chunk.length);
+                } finally {
+                    lock.lock();
+                    try {
+                        // the queue is empty, if onError() cleared it.
+                        if (queue.peek() == chunk) {
+                            queue.poll();
+                            notFull.signal();
+                        }
+                        inFlight = null;
+                    } finally {
+                        lock.unlock();
+                    }
+                    pool.release(chunk.bytes);
+                }
+            }
+        } catch (IOException | RuntimeException ex) {
+            lock.lock();
+            try {
+                draining = false;
+            } finally {
+                lock.unlock();
+            }
+            onError(ex);
+            throw ex;
+        }
+    }
+
+    private void checkError() throws IOException {
+        if (error != null) {
+            throw new IOException("the response cannot be written.", error);
+        }
+    }
+
+    private static final class Chunk {
+
+        final byte[] bytes;
+        final int length;
+
+        Chunk(byte[] bytes, int length) {
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core;
+
+import de.etecture.opensource.dynamicresources.utils.BufferPool;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+
+/**
+ * ingests the body of an asynchronously executed request without blocking a
+ * thread.
+ * <p>
+ * the container calls this listener whenever data has arrived. The data is
+ * collected in pooled chunks and the {@link Listener} is notified when the
+ * body is complete, so the request reader runs only if the whole body is
+ * there. If the body exceeds the maximum size, the ingestion stops at once.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class RequestBody implements ReadListener {
+
+    /**
+     * is notified about the outcome of the ingestion.
+     */
+    interface Listener {
+
+        /**
+         * the body is complete. The stream must be closed to return the
+         * chunks to the pool.
+         *
+         * @param body
+         */
+        void onBody(InputStream body);
+
+        /**
+         * the body exceeds the maximum size.
+         *
+         * @param maxSize
+         */
+        void onTooLarge(long maxSize);
+
+        /**
+         * the body cannot be read.
+         *
+         * @param cause
+         */
+        void onError(Throwable cause);
+    }
+    private final ServletInputStream in;
+    private final BufferPool pool;
+    private final long maxSize;
+    private final Listener listener;
+    private final List<byte[]> chunks = new ArrayList<>();
+    private byte[] current;
+    private int count;
+    private long size;
+    private boolean done;
+
+    /**
+     * @param in
+     * @param pool
+     * @param maxSize the maximum number of bytes or a negative value for no
+     * limit.
+     * @param listener
+     */
+    RequestBody(ServletInputStream in, BufferPool pool, long maxSize,
+                Listener listener) {
+        this.in = in;
+        this.pool = pool;
+        this.maxSize = maxSize;
+        this.listener = listener;
+    }
+
+    /**
+     * starts the ingestion.
+     */
+    void start() {
+        in.setReadListener(this);
+    }
+
+    @Override
+    public void onDataAvailable() throws IOException {
+        while (!done && in.isReady()) {
+            if (current == null || count == current.length) {
+                if (current != null) {
+                    chunks.add(current);
+                }
+                current = pool.acquire();
+                count = 0;
+            }
+            int n = in.read(current, count, current.length - count);
+            if (n < 0) {
+                return;
+            }
+            count += n;
+            size += n;
+            if (maxSize >= 0 && size > maxSize) {
+                done = true;
+                release();
+                listener.onTooLarge(maxSize);
+            }
+        }
+    }
+
+    @Override
+    public void onAllDataRead() throws IOException {
+        if (!done) {
+            done = true;
+            if (current != null) {
+                chunks.add(current);
+            }
+            listener.onBody(new ChunkInputStream(chunks, count));
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        if (!done) {
+            done = true;
+            release();
+            listener.onError(t);
+        }
+    }
+
+    private void release() {
+        for (byte[] chunk : chunks) {
+            pool.release(chunk);
+        }
+        chunks.clear();
+        pool.release(current);
+        current = null;
+    }
+
+    /**
+     * reads the collected chunks and returns each one to the pool as soon as
+     * it is consumed.
+     */
+    private final class ChunkInputStream extends InputStream {
+
+        private final List<byte[]> chunks;
+        private final int lastCount;
+        private int index;
+        private int position;
+
+        ChunkInputStream(List<byte[]> chunks, int lastCount) {
+            this.chunks = chunks;
+            this.lastCount = lastCount;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!ensureAvailable()) {
+                return -1;
+            }
+            return chunks.get(index)[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureAvailable()) {
+                return -1;
+            }
+            int n = Math.min(len, limit(index) - position);
+            System.arraycopy(chunks.get(index), position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return index < chunks.size() ? limit(index) - position : 0;
+        }
+
+        @Override
+        public void close() throws IOException {
+            while (index < chunks.size()) {
+                pool.release(chunks.get(index));
+                chunks.set(index++, null);
+            }
+        }
+
+        private boolean ensureAvailable() {
+            while (index < chunks.size() && position == limit(index)) {
+                pool.release(chunks.get(index));
+                chunks.set(index++, null);
+                position = 0;
+            }
+            return index < chunks.size();
+        }
+
+        private int limit(int chunk) {
+            return chunk == chunks.size() - 1 ? lastCount : chunks.get(chunk)
+                    .length;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * the data of a request, that a {@link DynamicResourcesServlet} needs to
+ * execute it.
+ * <p>
+ * if the request is executed asynchronously, the data is copied on the thread
+ * of the container, as the request may already be recycled by the container,
+ * when the execution starts after a timeout. The data is bound to the thread,
+ * that executes the request, so the extension does not depend on an active
+ * request context.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class RequestData {
+
+    private static final ThreadLocal<RequestData> CURRENT = new ThreadLocal<>();
+
+    private final String method;
+    private final String requestURI;
+    private final String contextPath;
+    private final String contentType;
+    private final String accept;
+    private final String characterEncoding;
+    private final HttpServletRequest request;
+    private final String baseUri;
+    private final Map<String, String[]> parameters;
+    private final RequestSecurity security;
+
+    private RequestData(HttpServletRequest request,
+                        Map<String, String[]> parameters,
+                        RequestSecurity security, boolean copy) {
+        this.method = request.getMethod();
+        this.requestURI = request.getRequestURI();
+        this.contextPath = request.getContextPath();
+        this.contentType = request.getHeader("Content-Type");
+        this.accept = request.getHeader("Accept");
+        this.characterEncoding = request.getCharacterEncoding();
+        this.request = copy ? null : request;
+        this.baseUri = copy ? baseUriOf(request) : null;
+        this.parameters = parameters;
+        this.security = security;
+    }
+
+    /**
+     * the data of a request, that is executed on the thread of the container.
+     *
+     * @param request
+     * @return
+     */
+    static RequestData of(HttpServletRequest request) {
+        return new RequestData(request, request.getParameterMap(),
+                               RequestSecurity.of(request), false);
+    }
+
+    /**
+     * copies the data of a request, that is executed on another thread.
+     *
+     * @param request
+     * @param roleNames the role names to capture for the user.
+     * @return
+     */
+    static RequestData copy(HttpServletRequest request,
+                            Iterable<String> roleNames) {
+        return new RequestData(request, new LinkedHashMap<>(request
+                .getParameterMap()), RequestSecurity.capture(request,
+                                                             roleNames), true);
+    }
+
+    /**
+     * returns the data of the request, that is executed on the current
+     * thread.
+     *
+     * @return the data or null, if no request is executed on this thread.
+     */
+    static RequestData current() {
+        return CURRENT.get();
+    }
+
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    String getRequestURI() {
+        return requestURI;
+    }
+
+    String getContextPath() {
+        return contextPath;
+    }
+
+    String getContentType() {
+        return contentType;
+    }
+
+    String getAccept() {
+        return accept;
+    }
+
+    String getCharacterEncoding() {
+        return characterEncoding;
+    }
+
+    /**
+     * the scheme, server, port and context path of the request.
+     *
+     * @return
+     */
+    String getBaseUri() {
+        return baseUri != null ? baseUri : baseUriOf(request);
+    }
+
+    private static String baseUriOf(HttpServletRequest request) {
+        return request.getScheme() + "://" + request.getServerName() + ":"
+                + request.getServerPort() + request.getContextPath();
+    }
+
+    Map<String, String[]> getParameters() {
+        return parameters;
+    }
+
+    RequestSecurity getSecurity() {
+        return security;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core;
+
+import de.etecture.opensource.dynamicresources.api.SecurityContext;
+import java.security.Principal;
+import java.util.HashSet;
+import java.util.Set;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * the user of the request, that is handled by a
+ * {@link DynamicResourcesServlet} on the current thread.
+ * <p>
+ * the servlet binds it with the {@link RequestData} to the thread, that
+ * executes the request. If the request is executed asynchronously, there is no
+ * active request context on that thread, so the principal and the roles
+ * declared by the application are captured on the thread of the container
+ * before.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public final class RequestSecurity implements SecurityContext {
+
+    private final String principal;
+    private final HttpServletRequest request;
+    private final Set<String> roles;
+
+    private RequestSecurity(String principal, HttpServletRequest request,
+                            Set<String> roles) {
+        this.principal = principal;
+        this.request = request;
+        this.roles = roles;
+    }
+
+    /**
+     * returns the user of the request, that is handled on the current
+     * thread.
+     *
+     * @return the user or null, if no request is handled on this thread.
+     */
+    public static RequestSecurity current() {
+        RequestData data = RequestData.current();
+        return data == null ? null : data.getSecurity();
+    }
+
+    /**
+     * the user of a request, that is handled on the thread of the container.
+     *
+     * @param request
+     * @return
+     */
+    static RequestSecurity of(HttpServletRequest request) {
+        return new RequestSecurity(nameOf(request), request, null);
+    }
+
+    /**
+     * captures the user of a request, that is handled on another thread.
+     *
+     * @param request
+     * @param roleNames the role names to check.
+     * @return
+     */
+    static RequestSecurity capture(HttpServletRequest request,
+                                   Iterable<String> roleNames) {
+        Set<String> roles = new HashSet<>();
+        for (String role : roleNames) {
+            if (request.isUserInRole(role)) {
+                roles.add(role);
+            }
+        }
+        return new RequestSecurity(nameOf(request), null, roles);
+    }
+
+    private static String nameOf(HttpServletRequest request) {
+        Principal principal = request.getUserPrincipal();
+        return principal == null ? null : principal.getName();
+    }
+
+    @Override
+    public boolean isUserInRole(String role) {
+        return request != null ? request.isUserInRole(role) : roles.contains(
+                role);
+    }
+
+    /**
+     * the name of the user principal.
+     *
+     * @return the name or null, if the user is not authenticated.
+     */
+    @Override
+    public String getUserPrincipal() {
+        return principal;
+    }
+
+    /**
+     * identifies the user by the principal and the given roles, that the
+     * user is in. Requests with the same identity are authorized the same.
+     *
+     * @param roleNames
+     * @return
+     */
+    public String getIdentity(Iterable<String> roleNames) {
+        return identityOf(this, roleNames);
+    }
+
+    /**
+     * identifies the user of the given security context like
+     * {@link #getIdentity(Iterable)}.
+     *
+     * @param security
+     * @param roleNames
+     * @return
+     */
+    public static String identityOf(SecurityContext security,
+                                    Iterable<String> roleNames) {
+        StringBuilder sb = new StringBuilder();
+        String principal = security.getUserPrincipal();
+        if (principal != null) {
+            sb.append(principal.length()).append(':').append(principal);
+        }
+        for (String role : roleNames) {
+            if (security.isUserInRole(role)) {
+                sb.append('|').append(role);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * traces the requests handled by a {@link DynamicResourcesServlet}.
+ * <p>
+ * each application traces to its own logger named
+ * <code>DynamicResourcesServlet.&lt;application-name&gt;</code>, so the level
+ * can be configured per application in the logging configuration or with the
+ * setting {@link DynamicResourcesServlet#REQUEST_TRACE_LEVEL}.
+ * <p>
+ * the messages are parameterized in the format of
+ * {@link java.text.MessageFormat} and are only formatted if the level is
+ * enabled. The overloads with fixed parameter counts do not even allocate the
+ * parameter array if the level is disabled.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class RequestTrace {
+
+    private final Logger logger;
+
+    RequestTrace(String applicationName, String level) {
+        this.logger = Logger.getLogger("DynamicResourcesServlet."
+                + applicationName);
+        if (level != null) {
+            logger.setLevel(Level.parse(level.toUpperCase()));
+        }
+    }
+
+    boolean isEnabled(Level level) {
+        return logger.isLoggable(level);
+    }
+
+    void log(Level level, String message, Object p1) {
+        if (logger.isLoggable(level)) {
+            logger.log(level, message, new Object[]{p1});
+        }
+    }
+
+    void log(Level level, String message, Object p1, Object p2) {
+        if (logger.isLoggable(level)) {
+            logger.log(level, message, new Object[]{p1, p2});
+        }
+    }
+
+    void log(Level level, String message, Object p1, Object p2, Object p3) {
+        if (logger.isLoggable(level)) {
+            logger.log(level, message, new Object[]{p1, p2, p3});
+        }
+    }
+
+    void log(Level level, String message, Object p1, Object p2, Object p3,
+            Object p4) {
+        if (logger.isLoggable(level)) {
+            logger.log(level, message, new Object[]{p1, p2, p3, p4});
+        }
+    }
+
+    void log(Level level, Throwable thrown, String message, Object p1) {
+        if (logger.isLoggable(level)) {
+            log(level, thrown, message, new Object[]{p1});
+        }
+    }
+
+    void log(Level level, Throwable thrown, String message, Object p1,
+            Object p2) {
+        if (logger.isLoggable(level)) {
+            log(level, thrown, message, new Object[]{p1, p2});
+        }
+    }
+
+    private void log(Level level, Throwable thrown, String message,
+            Object[] parameters) {
+        LogRecord record = new LogRecord(level, message);
+        record.setLoggerName(logger.getName());
+        record.setParameters(parameters);
+        record.setThrown(thrown);
+        logger.log(record);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core;
+
+import de.etecture.opensource.dynamicresources.utils.BufferPool;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * collects the serialized response in a growable byte buffer, so the entity is
+ * serialized only once and the exact byte length can be sent as
+ * Content-Length.
+ * <p>
+ * if the buffered content exceeds the threshold, the buffer is written to the
+ * response and all further content is streamed directly. In that case no
+ * Content-Length is set and the container uses chunked encoding.
+ * <p>
+ * the content is written to the output stream of the response or to the given
+ * sink, e.g. a {@link NonBlockingOutput}.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class ResponseBuffer extends OutputStream {
+
+    private final HttpServletResponse response;
+    private final BufferPool pool;
+    private final int threshold;
+    private byte[] buffer;
+    private int count;
+    private final OutputStream sink;
+    private OutputStream stream;
+
+    ResponseBuffer(HttpServletResponse response, BufferPool pool,
+                   int threshold) {
+        this(response, pool, threshold, null);
+    }
+
+    ResponseBuffer(HttpServletResponse response, BufferPool pool,
+                   int threshold, OutputStream sink) {
+        this.response = response;
+        this.pool = pool;
+        this.threshold = threshold;
+        this.sink = sink;
+        this.buffer = pool.acquire();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (stream != null) {
+            stream.write(b);
+        } else if (count + 1 > threshold) {
+            spill();
+            stream.write(b);
+        } else {
+            ensureCapacity(count + 1);
+            buffer[count++] = (byte) b;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (stream != null) {
+            stream.write(b, off, len);
+        } else if (count + len > threshold) {
+            spill();
+            stream.write(b, off, len);
+        } else {
+            ensureCapacity(count + len);
+            System.arraycopy(b, off, buffer, count, len);
+            count += len;
+        }
+    }
+
+    /**
+     * true, if the content is streamed directly to the response.
+     *
+     * @return
+     */
+    boolean isStreaming() {
+        return stream != null;
+    }
+
+    /**
+     * the number of buffered bytes.
+     *
+     * @return
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * returns a copy of the buffered content.
+     *
+     * @return the content or null, if it is streamed.
+     */
+    byte[] toByteArray() {
+        return stream == null ? Arrays.copyOf(buffer, count) : null;
+    }
+
+    /**
+     * writes the buffered content with its exact Content-Length or flushes the
+     * streamed content.
+     *
+     * @throws IOException
+     */
+    void commit() throws IOException {
+        if (stream == null) {
+            response.setContentLength(count);
+            stream = openStream();
+            stream.write(buffer, 0, count);
+            count = 0;
+        }
+        stream.flush();
+    }
+
+    /**
+     * returns the buffer to the pool. The content that is not committed yet is
+     * discarded.
+     */
+    void release() {
+        pool.release(buffer);
+        buffer = null;
+        count = 0;
+    }
+
+    private OutputStream openStream() throws IOException {
+        return sink == null ? response.getOutputStream() : sink;
+    }
+
+    private void spill() throws IOException {
+        stream = openStream();
+        stream.write(buffer, 0, count);
+        count = 0;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            byte[] grown = new byte[Math.max(capacity, buffer.length << 1)];
+            System.arraycopy(buffer, 0, grown, 0, count);
+            pool.release(buffer);
+            buffer = grown;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core;
+
+import de.etecture.opensource.dynamicresources.api.HttpHeaders;
+import de.etecture.opensource.dynamicresources.api.Response;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * caches the serialized responses of the GET requests, whose resource method
+ * defines a cache duration.
+ * <p>
+ * the responses are looked up without locking. Only adding a response takes
+ * the lock, since it may evict other ones.
+ * <p>
+ * the cache is bounded by the number of bytes of the cached contents. The
+ * least recently used entry is the candidate for eviction, but a new entry is
+ * only admitted, if it was requested at least as often as the candidates. The
+ * frequencies are estimated by a small count-min sketch, that is halved
+ * periodically, so a burst of distinct keys cannot flush the entries that are
+ * requested frequently.
+ * <p>
+ * an entry expires after the cache duration of its method or at the time of
+ * its <code>Expires</code> header, whichever is earlier. Each entry belongs
+ * to the generation of the modifications, in which its request started. It is
+ * not answered anymore, as soon as a resource was modified, since a resource
+ * may render the state of others.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class ResponseCache {
+
+    private static final int BYTES_PER_COUNTER = 1024;
+    private final long maxBytes;
+    private final ConcurrentMap<String, Entry> entries =
+            new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    private long bytes;
+
+    ResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        this.sketch = new FrequencySketch((int) Math.min(1 << 20, Math.max(64,
+                maxBytes / BYTES_PER_COUNTER)));
+    }
+
+    /**
+     * builds the key of a request.
+     *
+     * @param path
+     * @param parameters the query parameters of the request.
+     * @param acceptedType the negotiated media type.
+     * @param identity the principal and the roles of the user, since a cached
+     * response is answered without checking the roles.
+     * @return
+     */
+    static String key(String path, Map<String, String[]> parameters,
+                      Object acceptedType, String identity) {
+        StringBuilder sb = new StringBuilder(path);
+        if (!parameters.isEmpty()) {
+            // normalize the order of the parameters, but not of their values.
+            // the lengths are prefixed, so no value can fake another one.
+            String[] names = parameters.keySet().toArray(
+                    new String[parameters.size()]);
+            Arrays.sort(names);
+            sb.append('?');
+            for (String name : names) {
+                sb.append(name.length()).append(':').append(name);
+                String[] values = parameters.get(name);
+                sb.append('[').append(values.length).append(']');
+                for (String value : values) {
+                    sb.append(value.length()).append(':').append(value);
+                }
+            }
+        }
+        sb.append('\n').append(acceptedType);
+        sb.append('\n').append(identity);
+        return sb.toString();
+    }
+
+    /**
+     * returns the cached response or null, if there is none, it is expired or
+     * a resource was modified since.
+     *
+     * @param key
+     * @param generation the current generation of the modifications.
+     * @param now
+     * @return
+     */
+    Entry get(String key, long generation, long now) {
+        sketch.increment(key.hashCode());
+        Entry entry = entries.get(key);
+        if (entry == null || entry.isStale(generation, now)) {
+            return null;
+        }
+        entry.lastAccess = System.nanoTime();
+        return entry;
+    }
+
+    /**
+     * caches the serialized response.
+     *
+     * @param key
+     * @param generation the generation of the modifications, before the
+     * resource method was invoked.
+     * @param response
+     * @param content the serialized entity.
+     * @param cacheSeconds
+     * @param now
+     */
+    void put(String key, long generation, Response<?> response,
+             byte[] content, int cacheSeconds, long now) {
+        if (content.length > maxBytes) {
+            return;
+        }
+        List<String> headers = new ArrayList<>();
+        long expires = now + cacheSeconds * 1000L;
+        for (Map.Entry<String, List<Object>> e : response.getHeaders()) {
+            for (Object v : e.getValue()) {
+                if (HttpHeaders.EXPIRES.equalsIgnoreCase(e.getKey())) {
+                    expires = Math.min(expires, expiresAt(v, expires));
+                }
+                headers.add(e.getKey());
+                headers.add(v.toString());
+            }
+        }
+        if (expires <= now) {
+            return;
+        }
+        put(key, new Entry(response.getStatus(), headers.toArray(
+                new String[headers.size()]), content, expires, generation),
+            now);
+    }
+
+    private synchronized void put(String key, Entry entry, long now) {
+        // decide about the admission, before anything is removed.
+        Entry old = entries.get(key);
+        long excess = bytes + entry.content.length - maxBytes;
+        if (old != null) {
+            excess -= old.content.length;
+        }
+        List<String> victims = new ArrayList<>();
+        int frequency = sketch.frequency(key.hashCode());
+        while (excess > 0) {
+            Map.Entry<String, Entry> victim = leastRecentlyUsed(key, victims,
+                                                                entry.generation,
+                                                                now);
+            if (victim == null || !victim.getValue().isStale(entry.generation,
+                                                             now) && frequency
+                    < sketch.frequency(victim.getKey().hashCode())) {
+                // the victim is requested more often than the new entry.
+                return;
+            }
+            victims.add(victim.getKey());
+            excess -= victim.getValue().content.length;
+        }
+        for (String victim : victims) {
+            bytes -= entries.remove(victim).content.length;
+        }
+        if (old != null) {
+            bytes -= old.content.length;
+        }
+        entries.put(key, entry);
+        bytes += entry.content.length;
+    }
+
+    /**
+     * returns the next candidate for the eviction or null, if there is none.
+     * A stale entry is preferred to the least recently used one.
+     */
+    private Map.Entry<String, Entry> leastRecentlyUsed(String key,
+                                                       List<String> victims,
+                                                       long generation,
+                                                       long now) {
+        Map.Entry<String, Entry> candidate = null;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getKey().equals(key) || victims.contains(e.getKey())) {
+                continue;
+            }
+            if (e.getValue().isStale(generation, now)) {
+                return e;
+            }
+            if (candidate == null || e.getValue().lastAccess - candidate
+                    .getValue().lastAccess < 0) {
+                candidate = e;
+            }
+        }
+        return candidate;
+    }
+
+    private static long expiresAt(Object value, long defaultValue) {
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        } else if (value instanceof Calendar) {
+            return ((Calendar) value).getTimeInMillis();
+        } else if (value != null) {
+            SimpleDateFormat format = new SimpleDateFormat(
+                    "EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("GMT"));
+            try {
+                return format.parse(value.toString()).getTime();
+            } catch (ParseException ex) {
+                // an invalid date means, that the response is already expired.
+                return Long.MIN_VALUE;
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * a cached response.
+     */
+    static final class Entry {
+
+        private final int status;
+        private final String[] headers;
+        private final byte[] content;
+        private final long expires;
+        private final long generation;
+        private volatile long lastAccess = System.nanoTime();
+
+        Entry(int status, String[] headers, byte[] content, long expires,
+              long generation) {
+            this.status = status;
+            this.headers = headers;
+            this.content = content;
+            this.expires = expires;
+            this.generation = generation;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        /**
+         * the names and values of the headers alternately.
+         *
+         * @return
+         */
+        String[] getHeaders() {
+            return headers;
+        }
+
+        byte[] getContent() {
+            return content;
+        }
+
+        private boolean isStale(long currentGeneration, long now) {
+            return generation != currentGeneration || expires <= now;
+        }
+    }
+
+    /**
+     * estimates the frequency of the keys with four rows of counters, that
+     * saturate at 15 and are halved after a sample of increments.
+     * <p>
+     * the counters are updated atomically, but without a lock, so an increment
+     * racing with the halving may get lost, which only blurs the estimate.
+     */
+    private static final class FrequencySketch {
+
+        private static final int[] SEEDS = {0x97cb3127, 0xb492b66f,
+                                            0x9ae16a3b, 0xc3a5c85c};
+        private static final int MAX_COUNT = 15;
+        private final AtomicIntegerArray counters;
+        private final int mask;
+        private final int sampleSize;
+        private final AtomicInteger additions = new AtomicInteger();
+
+        FrequencySketch(int width) {
+            int size = Integer.highestOneBit(width - 1) << 1;
+            this.counters = new AtomicIntegerArray(size);
+            this.mask = size - 1;
+            this.sampleSize = 10 * size;
+        }
+
+        void increment(int hash) {
+            for (int seed : SEEDS) {
+                int index = indexOf(hash, seed);
+                if (counters.get(index) < MAX_COUNT) {
+                    counters.incrementAndGet(index);
+                }
+            }
+            if (additions.incrementAndGet() == sampleSize) {
+                // only the thread, that completes the sample, halves.
+                for (int i = 0; i < counters.length(); i++) {
+                    counters.set(i, counters.get(i) >>> 1);
+                }
+                additions.addAndGet(-sampleSize / 2);
+            }
+        }
+
+        int frequency(int hash) {
+            int frequency = MAX_COUNT;
+            for (int seed : SEEDS) {
+                frequency = Math.min(frequency, counters.get(indexOf(hash,
+                                                                     seed)));
+            }
+            return frequency;
+        }
+
+        private int indexOf(int hash, int seed) {
+            int h = (hash ^ seed) * 0x9e3779b9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core;
+
+import javax.servlet.ServletConfig;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+
+/**
+ * reads the settings of a {@link DynamicResourcesServlet}.
+ * <p>
+ * a setting is looked up as init-parameter of the servlet first, then as
+ * context-parameter prefixed with the name of the application (e.g.
+ * <code>movies.response-streaming-threshold</code>) and at last as
+ * context-parameter without prefix. So a setting can be specified for all
+ * applications in the web.xml and overridden per application.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class ServletSettings {
+
+    private final ServletConfig config;
+    private final String applicationName;
+
+    ServletSettings(ServletConfig config, String applicationName) {
+        this.config = config;
+        this.applicationName = applicationName;
+    }
+
+    String getString(String name, String defaultValue) {
+        String value = config.getInitParameter(name);
+        if (StringUtils.isBlank(value)) {
+            value = config.getServletContext().getInitParameter(
+                    applicationName + "." + name);
+        }
+        if (StringUtils.isBlank(value)) {
+            value = config.getServletContext().getInitParameter(name);
+        }
+        return StringUtils.isBlank(value) ? defaultValue : value.trim();
+    }
+
+    int getInt(String name, int defaultValue) {
+        return NumberUtils.toInt(getString(name, null), defaultValue);
+    }
+
+    long getLong(String name, long defaultValue) {
+        return NumberUtils.toLong(getString(name, null), defaultValue);
+    }
+
+    boolean getBoolean(String name, boolean defaultValue) {
+        String value = getString(name, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
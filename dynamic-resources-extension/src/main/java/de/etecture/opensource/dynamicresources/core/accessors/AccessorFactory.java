@@ -0,0 +1,212 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.accessors;
+
+import de.etecture.opensource.dynamicresources.api.accesspoints.ApplicationAccessor;
+import de.etecture.opensource.dynamicresources.api.accesspoints.MethodAccessor;
+import de.etecture.opensource.dynamicresources.api.accesspoints.ResourceAccessor;
+import de.etecture.opensource.dynamicresources.api.accesspoints.TypedResourceAccessor;
+import de.etecture.opensource.dynamicresources.core.executors.ResourceMethodExecutions;
+import de.etecture.opensource.dynamicresources.metadata.Application;
+import de.etecture.opensource.dynamicresources.metadata.Resource;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethod;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponse;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+/**
+ * creates the accessors of the applications directly.
+ * <p>
+ * it holds a graph of all resources, that is built once after the deployment.
+ * For each resource it knows the supported response types and the responses by
+ * method name and response type, so walking from an application accessor to a
+ * method accessor only allocates the accessors and does not need any container
+ * lookup.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+@ApplicationScoped
+public class AccessorFactory {
+
+    @Inject
+    Instance<Application> allApplications;
+    @Inject
+    ResourceMethodExecutions executions;
+    private Map<Resource, Node> nodes;
+
+    @PostConstruct
+    void buildGraph() {
+        Map<Resource, Node> graph = new IdentityHashMap<>();
+        for (Application application : allApplications) {
+            for (Resource resource : application.getResources().values()) {
+                graph.put(resource, new Node(resource));
+            }
+        }
+        this.nodes = Collections.unmodifiableMap(graph);
+    }
+
+    /**
+     * creates an accessor for the given application.
+     *
+     * @param application
+     * @return
+     */
+    public ApplicationAccessor createApplicationAccessor(
+            Application application) {
+        return new DynamicApplicationAccessor(application, this);
+    }
+
+    /**
+     * creates an accessor for the given resource.
+     *
+     * @param resource
+     * @return
+     */
+    public ResourceAccessor createResourceAccessor(Resource resource) {
+        return new DynamicResourceAccessor(resource, this);
+    }
+
+    /**
+     * creates an accessor for the given resource and response type.
+     *
+     * @param <R>
+     * @param resource
+     * @param responseType
+     * @return
+     */
+    public <R> TypedResourceAccessor<R> createTypedResourceAccessor(
+            Resource resource, Class<R> responseType) {
+        return new DynamicTypedResourceAccessor<>(resource, responseType, this);
+    }
+
+    /**
+     * creates an accessor for the given resource method response.
+     *
+     * @param <R>
+     * @param response
+     * @return
+     */
+    public <R> MethodAccessor<R> createMethodAccessor(
+            ResourceMethodResponse<R> response) {
+        return new DynamicMethodAccessor<>(response, this);
+    }
+
+    /**
+     * checks, if any method of the resource responds with the given type.
+     *
+     * @param resource
+     * @param responseType
+     * @return
+     */
+    public boolean supports(Resource resource, Class<?> responseType) {
+        return node(resource).responseTypes.contains(responseType);
+    }
+
+    /**
+     * returns the named method of the resource.
+     *
+     * @param resource
+     * @param methodName
+     * @return the method or null, if the resource has no such method.
+     */
+    public ResourceMethod findMethod(Resource resource, String methodName) {
+        return node(resource).methods.get(methodName);
+    }
+
+    /**
+     * returns the response of the named method of the resource for the given
+     * response type.
+     *
+     * @param <R>
+     * @param resource
+     * @param methodName
+     * @param responseType
+     * @return the response or null, if the method does not respond with this
+     * type.
+     */
+    public <R> ResourceMethodResponse<R> findResponse(Resource resource,
+            String methodName, Class<R> responseType) {
+        Map<Class<?>, ResourceMethodResponse<?>> responses = node(resource)
+                .responses.get(methodName);
+        return responses == null ? null
+                : (ResourceMethodResponse<R>) responses.get(responseType);
+    }
+
+    ResourceMethodExecutions getExecutions() {
+        return executions;
+    }
+
+    private Node node(Resource resource) {
+        Node node = nodes.get(resource);
+        // a resource, that is not part of an application, is not cached.
+        return node == null ? new Node(resource) : node;
+    }
+
+    /**
+     * the methods, the supported response types and the responses of a
+     * resource.
+     */
+    private static final class Node {
+
+        private final Map<String, ResourceMethod> methods = new HashMap<>();
+        private final Set<Class<?>> responseTypes = new HashSet<>();
+        private final Map<String, Map<Class<?>, ResourceMethodResponse<?>>> responses
+                = new HashMap<>();
+
+        Node(Resource resource) {
+            for (ResourceMethod method : resource.getMethods().values()) {
+                methods.put(method.getName(), method);
+                responseTypes.addAll(method.getResponses().keySet());
+                responses.put(method.getName(),
+                        new HashMap<>(method.getResponses()));
+            }
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.accessors;
+
+import de.etecture.opensource.dynamicresources.api.accesspoints.ApplicationAccessor;
+import de.etecture.opensource.dynamicresources.metadata.Application;
+import de.etecture.opensource.dynamicresources.metadata.ApplicationNotFoundException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+
+/**
+ * an immutable index of all applications, that is built once after the
+ * deployment.
+ * <p>
+ * it holds a trie of the base paths of the applications to find the
+ * application for a complete uri by its longest matching base path, as well as
+ * a map from the application name to the application. The
+ * {@link ApplicationAccessor}s are created by the {@link AccessorFactory}, so
+ * resolving an application does not need a container lookup.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+@ApplicationScoped
+public class ApplicationIndex {
+
+    @Inject
+    Instance<Application> allApplications;
+    @Inject
+    AccessorFactory factory;
+    private Map<String, Application> byName;
+    private Map<String, Application> byBase;
+    private Node root;
+
+    @PostConstruct
+    void buildIndex() {
+        Map<String, Application> names = new HashMap<>();
+        Map<String, Application> bases = new HashMap<>();
+        Node trie = new Node();
+        for (Application application : allApplications) {
+            names.put(application.getName(), application);
+            String base = normalize(application.getBase());
+            bases.put(base, application);
+            Node node = trie;
+            for (String segment : base.split("/")) {
+                if (!segment.isEmpty()) {
+                    node = node.child(segment);
+                }
+            }
+            node.application = application;
+        }
+        this.byName = Collections.unmodifiableMap(names);
+        this.byBase = Collections.unmodifiableMap(bases);
+        this.root = trie;
+    }
+
+    /**
+     * returns the names of all applications.
+     *
+     * @return
+     */
+    public Set<String> getApplicationNames() {
+        return byName.keySet();
+    }
+
+    /**
+     * returns the application with the given name.
+     *
+     * @param applicationName
+     * @return
+     * @throws ApplicationNotFoundException
+     */
+    public Application getApplication(String applicationName) throws
+            ApplicationNotFoundException {
+        return lookup(applicationName);
+    }
+
+    /**
+     * creates an {@link ApplicationAccessor} for the application with the
+     * given name.
+     *
+     * @param applicationName
+     * @return
+     * @throws ApplicationNotFoundException
+     */
+    public ApplicationAccessor createAccessor(String applicationName) throws
+            ApplicationNotFoundException {
+        return factory.createApplicationAccessor(lookup(applicationName));
+    }
+
+    /**
+     * returns the application, whose base path is exactly the given one.
+     *
+     * @param basePath
+     * @return the application or null, if there is none.
+     */
+    public Application findByBase(String basePath) {
+        return byBase.get(normalize(basePath));
+    }
+
+    /**
+     * returns the application with the longest base path, that is a prefix of
+     * the given uri.
+     *
+     * @param uri
+     * @return the application or null, if there is none.
+     */
+    public Application findByUri(String uri) {
+        Node node = root;
+        Application found = node.application;
+        int start = 0;
+        int length = uri.indexOf('?');
+        if (length < 0) {
+            length = uri.length();
+        }
+        while (node != null && start < length) {
+            int end = uri.indexOf('/', start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+            if (end > start) {
+                node = node.children.get(uri.substring(start, end));
+                if (node != null && node.application != null) {
+                    found = node.application;
+                }
+            }
+            start = end + 1;
+        }
+        return found;
+    }
+
+    private Application lookup(String applicationName) throws
+            ApplicationNotFoundException {
+        Application application = byName.get(applicationName);
+        if (application == null) {
+            throw new ApplicationNotFoundException(
+                    "no application match the name: " + applicationName);
+        }
+        return application;
+    }
+
+    private static String normalize(String base) {
+        if (base == null || base.isEmpty() || "/".equals(base)) {
+            return "";
+        }
+        return base.endsWith("/") ? base.substring(0, base.length() - 1)
+                : base;
+    }
+
+    /**
+     * a node within the trie of base paths.
+     */
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private Application application;
+
+        Node child(String segment) {
+            Node child = children.get(segment);
+            if (child == null) {
+                child = new Node();
+                children.put(segment, child);
+            }
+            return child;
+        }
+    }
+}
@@ -49,12 +49,10 @@ import de.etecture.opensource.dynamicresources.metadata.MediaTypeAmbigiousExcept
 import de.etecture.opensource.dynamicresources.metadata.MediaTypeNotSupportedException;
 import de.etecture.opensource.dynamicresources.metadata.Resource;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodNotFoundException;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMatch;
 import de.etecture.opensource.dynamicresources.metadata.ResourceNotFoundException;
-import de.etecture.opensource.dynamicresources.metadata.ResourcePathNotMatchException;
 import de.etecture.opensource.dynamicresources.metadata.ResponseTypeNotSupportedException;
-import de.etecture.opensource.dynamicresources.utils.ResourceLiteral;
 import java.util.Map;
-import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
 /**
@@ -67,7 +65,7 @@ public class DynamicApplicationAccessor implements ApplicationAccessor {
 
     private final Application application;
     @Inject
-    Instance<Object> accessPoints;
+    AccessorFactory factory;
 
     DynamicApplicationAccessor() {
         throw new IllegalStateException("why the heck wants to proxy this bean?");
@@ -77,6 +75,12 @@ public class DynamicApplicationAccessor implements ApplicationAccessor {
         this.application = application;
     }
 
+    DynamicApplicationAccessor(Application application,
+            AccessorFactory factory) {
+        this.application = application;
+        this.factory = factory;
+    }
+
     @Override
     public Application getMetadata() {
         return application;
@@ -102,29 +106,21 @@ public class DynamicApplicationAccessor implements ApplicationAccessor {
     public ResourceAccessor selectByName(String name) throws
             ResourceNotFoundException {
         // do the resource exists?
-        if (!application.getResources().containsKey(name)) {
+        Resource resource = application.getResources().get(name);
+        if (resource == null) {
             throw new ResourceNotFoundException("resource with name: " + name
                     + " not found within the application: " + application
                     .getName());
         }
-        return accessPoints.select(ResourceAccessor.class, new ResourceLiteral(
-                                   name)).get();
+        return factory.createResourceAccessor(resource);
     }
 
     @Override
     public ResourceAccessor selectByPath(String path) throws
             ResourceNotFoundException {
-        Resource resource = application.findResource(path);
-        try {
-            return selectByName(resource.getName())
-                    .pathParams(
-                            resource.getPath().
-                            getPathParameterValues(path));
-        } catch (ResourcePathNotMatchException ex) {
-            throw new ResourceNotFoundException(
-                    "cannot extract path parameters from path: " + path
-                    + " for resource: " + resource.getName(), ex);
-        }
+        ResourceMatch match = ResourceMatch.of(application, path);
+        return selectByName(match.getResource().getName())
+                .pathParams(match.getPathParameterValues());
     }
 
     @Override
@@ -39,7 +39,6 @@
  */
 package de.etecture.opensource.dynamicresources.core.accessors;
 
-import de.etecture.opensource.dynamicresources.api.accesspoints.AccessPoint;
 import de.etecture.opensource.dynamicresources.api.accesspoints.ApplicationAccessor;
 import de.etecture.opensource.dynamicresources.api.accesspoints.Applications;
 import de.etecture.opensource.dynamicresources.api.accesspoints.MethodAccessor;
@@ -47,14 +46,9 @@ import de.etecture.opensource.dynamicresources.api.accesspoints.ResourceAccessor
 import de.etecture.opensource.dynamicresources.api.accesspoints.TypedResourceAccessor;
 import de.etecture.opensource.dynamicresources.metadata.Application;
 import de.etecture.opensource.dynamicresources.metadata.ApplicationNotFoundException;
-import de.etecture.opensource.dynamicresources.metadata.Resource;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMatch;
 import de.etecture.opensource.dynamicresources.metadata.ResourceNotFoundException;
-import de.etecture.opensource.dynamicresources.metadata.ResourcePathNotMatchException;
-import de.etecture.opensource.dynamicresources.utils.ApplicationLiteral;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
-import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
 /**
@@ -73,75 +67,48 @@ import javax.inject.Inject;
 public class DynamicApplications implements Applications {
 
     /**
-     * the allApplications.
+     * the index of all applications.
      */
     @Inject
-    Instance<Application> allApplications;
-    /**
-     * this is used to lookup or create accesspoints.
-     */
-    @Inject
-    Instance<AccessPoint> accessPoints;
+    ApplicationIndex index;
 
     @Override
     public Set<String> getApplicationNames() {
-        Set<String> applicationNames = new HashSet<>();
-        for (Application application : allApplications) {
-            applicationNames.add(application.getName());
-        }
-        return Collections.unmodifiableSet(applicationNames);
+        return index.getApplicationNames();
     }
 
     @Override
     public ApplicationAccessor selectByName(String applicationName) throws
             ApplicationNotFoundException {
-        final Instance<ApplicationAccessor> selected = accessPoints.select(
-                ApplicationAccessor.class,
-                new ApplicationLiteral(applicationName));
-        if (selected.isAmbiguous()) {
-            throw new ApplicationNotFoundException(
-                    "more than one applications will  match the name: "
-                    + applicationName);
-        } else if (selected.isUnsatisfied()) {
-            throw new ApplicationNotFoundException(
-                    "no application match the name: " + applicationName);
-        }
-        return selected.get();
+        return index.createAccessor(applicationName);
     }
 
     @Override
     public ApplicationAccessor selectByPath(String basePath) throws
             ApplicationNotFoundException {
-        // lookup the allApplications for the baseUri
-        for (Application application : allApplications) {
-            if (application.getBase().equals(basePath)) {
-                return selectByName(application.getName());
-            }
+        // lookup the application for the baseUri
+        Application application = index.findByBase(basePath);
+        if (application == null) {
+            throw new ApplicationNotFoundException(
+                    "There is no application registered, that is responsible for the given path: "
+                    + basePath);
         }
-        throw new ApplicationNotFoundException(
-                "There is no application registered, that is responsible for the given path: "
-                + basePath);
+        return selectByName(application.getName());
     }
 
     @Override
     public ResourceAccessor findForCompleteUri(String uri) throws
             ResourceNotFoundException, ApplicationNotFoundException {
-        // lookup the allApplications baseUri...
-        for (Application application : allApplications) {
-            if (uri.startsWith(application.getBase())) {
-                Resource resource = application.findResource(uri);
-                try {
-                    return selectByName(application.getName())
-                            .selectByName(resource.getName())
-                            .pathParams(resource.getPath()
-                                    .getPathParameterValues(uri));
-                } catch (ResourcePathNotMatchException ex) {
-                    throw new ResourceNotFoundException(ex);
-                }
-            }
+        // lookup the application with the longest matching baseUri...
+        Application application = index.findByUri(uri);
+        if (application == null) {
+            throw new ApplicationNotFoundException(
+                    "there is no application that holds any resource matching the path: "
+                    + uri);
         }
-        throw new ApplicationNotFoundException(
-                "there is no application that holds any resource matching the path: "
-                + uri);
+        ResourceMatch match = ResourceMatch.of(application, uri);
+        return selectByName(application.getName())
+                .selectByName(match.getResource().getName())
+                .pathParams(match.getPathParameterValues());
     }
 }
@@ -41,7 +41,6 @@ package de.etecture.opensource.dynamicresources.core.accessors;
 
 import de.etecture.opensource.dynamicresources.api.ResourceException;
 import de.etecture.opensource.dynamicresources.api.Response;
-import de.etecture.opensource.dynamicresources.api.accesspoints.AccessPoint;
 import de.etecture.opensource.dynamicresources.api.accesspoints.MethodAccessor;
 import de.etecture.opensource.dynamicresources.api.accesspoints.TypedResourceAccessor;
 import de.etecture.opensource.dynamicresources.core.executors.ResourceMethodExecutions;
@@ -49,14 +48,11 @@ import de.etecture.opensource.dynamicresources.metadata.RequestTypeNotSupportedE
 import de.etecture.opensource.dynamicresources.metadata.Resource;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodRequest;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponse;
-import de.etecture.opensource.dynamicresources.utils.ResourceLiteral;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import de.etecture.opensource.dynamicresources.utils.ArrayMap;
+import de.etecture.opensource.dynamicresources.utils.ValueList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import javax.enterprise.inject.Instance;
-import javax.enterprise.util.TypeLiteral;
 import javax.inject.Inject;
 
 /**
@@ -68,11 +64,11 @@ import javax.inject.Inject;
 public class DynamicMethodAccessor<R, B> implements MethodAccessor<R> {
 
     private ResourceMethodResponse<R> resourceMethodResponse;
-    private final Map<String, Object> parameter = new HashMap<>();
+    private final Map<String, Object> parameter = new ArrayMap<>();
     private B requestBody;
     private int expectedStatusCode = -1; // all status codes are acceptable
     @Inject
-    Instance<AccessPoint> accessPoints;
+    AccessorFactory factory;
     @Inject
     ResourceMethodExecutions executions;
 
@@ -84,6 +80,13 @@ public class DynamicMethodAccessor<R, B> implements MethodAccessor<R> {
         this.resourceMethodResponse = metadata;
     }
 
+    DynamicMethodAccessor(ResourceMethodResponse<R> metadata,
+            AccessorFactory factory) {
+        this.resourceMethodResponse = metadata;
+        this.factory = factory;
+        this.executions = factory.getExecutions();
+    }
+
     @Override
     public MethodAccessor<R> pathParams(Map<String, String> pathParameter) {
         parameter.putAll(pathParameter);
@@ -98,9 +101,8 @@ public class DynamicMethodAccessor<R, B> implements MethodAccessor<R> {
     @Override
     public TypedResourceAccessor<R> methods() {
         Resource resource = resourceMethodResponse.getMethod().getResource();
-        return accessPoints.select(new TypeLiteral<TypedResourceAccessor<R>>() {
-            private static final long serialVersionUID = 1L;
-        }, new ResourceLiteral(resource)).get();
+        return factory.createTypedResourceAccessor(resource,
+                resourceMethodResponse.getResponseType());
     }
 
     @Override
@@ -110,13 +112,13 @@ public class DynamicMethodAccessor<R, B> implements MethodAccessor<R> {
         if (current != null && current instanceof List) {
             valueList = (List<Object>) current;
         } else {
-            valueList = new ArrayList<>();
+            valueList = new ValueList<>();
             if (current != null) {
                 valueList.add(current);
             }
             parameter.put(name, valueList);
         }
-        valueList.addAll(Arrays.asList(values));
+        Collections.addAll(valueList, values);
         return this;
     }
 
@@ -42,7 +42,6 @@ package de.etecture.opensource.dynamicresources.core.accessors;
 import de.etecture.opensource.dynamicresources.api.MediaType;
 import de.etecture.opensource.dynamicresources.api.ResourceException;
 import de.etecture.opensource.dynamicresources.api.Response;
-import de.etecture.opensource.dynamicresources.api.accesspoints.AccessPoint;
 import de.etecture.opensource.dynamicresources.api.accesspoints.MethodAccessor;
 import de.etecture.opensource.dynamicresources.api.accesspoints.ResourceAccessor;
 import de.etecture.opensource.dynamicresources.api.accesspoints.TypedResourceAccessor;
@@ -54,13 +53,8 @@ import de.etecture.opensource.dynamicresources.metadata.ResourceMethod;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodNotFoundException;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponse;
 import de.etecture.opensource.dynamicresources.metadata.ResponseTypeNotSupportedException;
-import de.etecture.opensource.dynamicresources.utils.MethodLiteral;
-import de.etecture.opensource.dynamicresources.utils.ResourceLiteral;
-import de.etecture.opensource.dynamicresources.utils.TypedLiteral;
 import java.util.HashMap;
 import java.util.Map;
-import javax.enterprise.inject.Instance;
-import javax.enterprise.util.TypeLiteral;
 import javax.inject.Inject;
 
 /**
@@ -74,7 +68,7 @@ public class DynamicResourceAccessor implements ResourceAccessor {
     private final Resource resource;
     private final Map<String, String> pathParams = new HashMap<>();
     @Inject
-    Instance<AccessPoint> accessPoints;
+    AccessorFactory factory;
 
     DynamicResourceAccessor() {
         throw new IllegalStateException("why the heck wants to proxy this bean?");
@@ -84,6 +78,11 @@ public class DynamicResourceAccessor implements ResourceAccessor {
         this.resource = resource;
     }
 
+    DynamicResourceAccessor(Resource resource, AccessorFactory factory) {
+        this.resource = resource;
+        this.factory = factory;
+    }
+
     @Override
     public Resource getMetadata() {
         return resource;
@@ -93,16 +92,9 @@ public class DynamicResourceAccessor implements ResourceAccessor {
     public <R> TypedResourceAccessor<R> select(
             Class<R> responseType) throws ResponseTypeNotSupportedException {
         // check the response type
-        for (ResourceMethod method : resource.getMethods().values()) {
-            if (method.getResponses().containsKey(responseType)) {
-                return accessPoints.select(
-                        new TypeLiteral<TypedResourceAccessor<R>>() {
-                            private static final long serialVersionUID = 1L;
-                        }, new ResourceLiteral(resource), new TypedLiteral(
-                                responseType))
-                        .get().pathParams(
-                                pathParams);
-            }
+        if (factory.supports(resource, responseType)) {
+            return factory.createTypedResourceAccessor(resource, responseType)
+                    .pathParams(pathParams);
         }
         throw new ResponseTypeNotSupportedException(resource, responseType);
     }
@@ -122,13 +114,8 @@ public class DynamicResourceAccessor implements ResourceAccessor {
             }
         }
         if (responseType != null) {
-            return accessPoints.select(
-                    new TypeLiteral<TypedResourceAccessor<R>>() {
-                        private static final long serialVersionUID = 1L;
-                    }, new ResourceLiteral(resource), new TypedLiteral(
-                            responseType))
-                    .get().pathParams(
-                            pathParams);
+            return factory.createTypedResourceAccessor(resource, responseType)
+                    .pathParams(pathParams);
         } else {
             throw new MediaTypeNotAllowedException(resource, mediaType);
         }
@@ -156,13 +143,7 @@ public class DynamicResourceAccessor implements ResourceAccessor {
         ResourceMethod method = resource.getMethod(methodName);
         ResourceMethodResponse<R> response = (ResourceMethodResponse<R>) method
                 .getResponse(produces);
-        return accessPoints.select(
-                new TypeLiteral<MethodAccessor<R>>() {
-                    private static final long serialVersionUID = 1L;
-                }, new ResourceLiteral(method.getResource()),
-                new MethodLiteral(method.getName()),
-                new TypedLiteral(response.getResponseType())).get().pathParams(
-                        pathParams);
+        return factory.createMethodAccessor(response).pathParams(pathParams);
     }
 
     @Override
@@ -42,20 +42,15 @@ package de.etecture.opensource.dynamicresources.core.accessors;
 import de.etecture.opensource.dynamicresources.api.ResourceException;
 import de.etecture.opensource.dynamicresources.api.Response;
 import de.etecture.opensource.dynamicresources.api.StatusCodes;
-import de.etecture.opensource.dynamicresources.api.accesspoints.AccessPoint;
 import de.etecture.opensource.dynamicresources.api.accesspoints.MethodAccessor;
 import de.etecture.opensource.dynamicresources.api.accesspoints.TypedResourceAccessor;
 import de.etecture.opensource.dynamicresources.metadata.Resource;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethod;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodNotFoundException;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponse;
 import de.etecture.opensource.dynamicresources.metadata.ResponseTypeNotSupportedException;
-import de.etecture.opensource.dynamicresources.utils.MethodLiteral;
-import de.etecture.opensource.dynamicresources.utils.ResourceLiteral;
-import de.etecture.opensource.dynamicresources.utils.TypedLiteral;
 import java.util.HashMap;
 import java.util.Map;
-import javax.enterprise.inject.Instance;
-import javax.enterprise.util.TypeLiteral;
 import javax.inject.Inject;
 
 /**
@@ -70,7 +65,7 @@ public class DynamicTypedResourceAccessor<T> implements TypedResourceAccessor<T>
     private final Resource resource;
     private final Class<T> responseType;
     @Inject
-    Instance<AccessPoint> accessPoints;
+    AccessorFactory factory;
 
     DynamicTypedResourceAccessor() {
         throw new IllegalStateException("why the heck wants to proxy this bean?");
@@ -81,6 +76,13 @@ public class DynamicTypedResourceAccessor<T> implements TypedResourceAccessor<T>
         this.responseType = type;
     }
 
+    DynamicTypedResourceAccessor(Resource metadata, Class<T> type,
+            AccessorFactory factory) {
+        this.resource = metadata;
+        this.responseType = type;
+        this.factory = factory;
+    }
+
     @Override
     public Class<T> getSelectedResponseType() {
         return responseType;
@@ -95,14 +97,9 @@ public class DynamicTypedResourceAccessor<T> implements TypedResourceAccessor<T>
     public <R> TypedResourceAccessor<R> select(
             Class<R> responseType) throws ResponseTypeNotSupportedException {
         // check the response type
-        for (ResourceMethod method : resource.getMethods().values()) {
-            return accessPoints.select(
-                    new TypeLiteral<TypedResourceAccessor<R>>() {
-                        private static final long serialVersionUID = 1L;
-                    }, new ResourceLiteral(resource), new TypedLiteral(
-                            responseType))
-                    .get().pathParams(
-                            pathParameters);
+        if (factory.supports(resource, responseType)) {
+            return factory.createTypedResourceAccessor(resource, responseType)
+                    .pathParams(pathParameters);
         }
         throw new ResponseTypeNotSupportedException(resource, responseType);
     }
@@ -124,19 +121,16 @@ public class DynamicTypedResourceAccessor<T> implements TypedResourceAccessor<T>
     @Override
     public MethodAccessor<T> method(String methodName) throws
             ResourceMethodNotFoundException {
-        ResourceMethod method = resource.getMethod(methodName);
+        ResourceMethod method = factory.findMethod(resource, methodName);
         if (method == null) {
             throw new ResourceMethodNotFoundException(resource, methodName);
         } else {
             // check the type...
-            if (method.getResponses().containsKey(responseType)) {
-                return accessPoints.select(
-                        new TypeLiteral<MethodAccessor<T>>() {
-                            private static final long serialVersionUID = 1L;
-                        }, new ResourceLiteral(method.getResource()),
-                        new MethodLiteral(method.getName()),
-                        new TypedLiteral(responseType)).get().pathParams(
-                                pathParameters);
+            ResourceMethodResponse<T> response = factory.findResponse(resource,
+                    methodName, responseType);
+            if (response != null) {
+                return factory.createMethodAccessor(response).pathParams(
+                        pathParameters);
             } else {
                 throw new ResourceMethodNotFoundException(resource, methodName,
                                                           new ResponseTypeNotSupportedException(
@@ -39,23 +39,16 @@
  */
 package de.etecture.opensource.dynamicresources.core.executors;
 
-import de.etecture.opensource.dynamicresources.annotations.Application;
-import de.etecture.opensource.dynamicresources.annotations.Failed;
-import de.etecture.opensource.dynamicresources.annotations.Method;
-import de.etecture.opensource.dynamicresources.annotations.Resource;
-import de.etecture.opensource.dynamicresources.annotations.Succeed;
 import de.etecture.opensource.dynamicresources.api.ExecutionContext;
 import de.etecture.opensource.dynamicresources.api.ResourceException;
 import de.etecture.opensource.dynamicresources.api.Response;
-import de.etecture.opensource.dynamicresources.api.events.AfterExecutionEvent;
-import de.etecture.opensource.dynamicresources.api.events.BeforeExecutionEvent;
-import de.etecture.opensource.dynamicresources.utils.ApplicationLiteral;
-import de.etecture.opensource.dynamicresources.utils.MethodLiteral;
-import de.etecture.opensource.dynamicresources.utils.ResourceLiteral;
-import javax.enterprise.event.Event;
-import javax.inject.Inject;
 
 /**
+ * the base class for the resource method executors.
+ * <p>
+ * the executors are application scoped and called concurrently, so the before
+ * and after execution events are created for each execution and never shared
+ * between requests.
  *
  * @author rhk
  * @version
@@ -64,63 +57,41 @@ import javax.inject.Inject;
 public abstract class AbstractResourceMethodExecutor implements
         ResourceMethodExecutor {
 
-    @Inject
-    BeforeExecutionEventBean beforeEvent;
-    @Inject
-    AfterExecutionEventBean afterEvent;
-    @Inject
-    Event<BeforeExecutionEvent> beforeEvents;
-    @Inject
-    @Succeed
-    Event<AfterExecutionEvent> afterSuccessEvents;
-    @Inject
-    @Failed
-    Event<AfterExecutionEvent> afterFailedEvents;
-
     protected abstract <R, B> R getEntity(ExecutionContext<R, B> context) throws
             Exception;
 
     @Override
-    public <R, B> Response<R> execute(
+    public <R, B> Response<R> execute(ExecutionPlan plan,
             ExecutionContext<R, B> context) throws ResourceException {
-        // build the literals for the event selection
-        Application application = new ApplicationLiteral(context
-                .getResourceMethod().getResource().getApplication().getName());
-        Resource resource = new ResourceLiteral(
-                context.getResourceMethod().getResource());
-        Method method = new MethodLiteral(context.getResourceMethod().getName());
-        // init the event
-        beforeEvent.init(context);
-        // select and fire the before event.
-        beforeEvents.select(application, resource, method).fire(beforeEvent);
-        // check if canceled
-        if (beforeEvent.wasCanceled()) {
-            // canceled, so return immediately
-            return (Response<R>) beforeEvent.getCancelingResponse();
-        } else {
-            // not canceled, so get the entity.
-            Object originalEntity;
-            boolean succeed;
-            try {
-                originalEntity = getEntity(context);
-                succeed = true;
-            } catch (Exception ex) {
-                originalEntity = ex;
-                succeed = false;
-            }
-            // init the after event.
-            afterEvent.init(context, originalEntity);
-            // select and fire the event.
-            if (succeed) {
-                afterSuccessEvents.select(application, resource, method).fire(
-                        afterEvent);
-            } else {
-                afterFailedEvents.select(application, resource, method).fire(
-                        afterEvent);
+        if (plan.isBeforeObserved()) {
+            // create the event for this execution
+            BeforeExecutionEventBean beforeEvent = new BeforeExecutionEventBean(
+                    context);
+            // fire the preselected before event.
+            plan.fireBefore(beforeEvent);
+            // check if canceled
+            if (beforeEvent.wasCanceled()) {
+                // canceled, so return immediately
+                return (Response<R>) beforeEvent.getCancelingResponse();
             }
-            // the after event is the response, so return it.
-            return (Response<R>) afterEvent;
         }
-
+        // not canceled, so get the entity.
+        Object originalEntity;
+        boolean succeed;
+        try {
+            originalEntity = getEntity(context);
+            succeed = true;
+        } catch (Exception ex) {
+            originalEntity = ex;
+            succeed = false;
+        }
+        // create the after event for this execution.
+        AfterExecutionEventBean afterEvent = new AfterExecutionEventBean(
+                context);
+        afterEvent.init(plan, originalEntity);
+        // fire the preselected event, if it is observed at all.
+        plan.fireAfter(afterEvent, succeed);
+        // the after event is the response, so return it.
+        return (Response<R>) afterEvent;
     }
 }
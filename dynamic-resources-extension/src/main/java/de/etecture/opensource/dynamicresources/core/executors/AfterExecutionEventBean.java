@@ -40,7 +40,6 @@
 package de.etecture.opensource.dynamicresources.core.executors;
 
 import de.etecture.opensource.dynamicresources.api.ExecutionContext;
-import de.etecture.opensource.dynamicresources.api.HeaderValueGenerator;
 import de.etecture.opensource.dynamicresources.api.Response;
 import de.etecture.opensource.dynamicresources.api.ResponseException;
 import de.etecture.opensource.dynamicresources.api.events.AfterExecutionEvent;
@@ -53,29 +52,23 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import javax.enterprise.inject.Instance;
-import javax.inject.Inject;
 
 class AfterExecutionEventBean implements
         AfterExecutionEvent {
 
     private final HeaderValueMap headers = new HeaderValueMap();
-    private ExecutionContext<?, ?> context;
+    private final ExecutionContext<?, ?> context;
     private Object originalEntity;
     private Object currentEntity;
     private int currentStatus;
-    @Inject
-    Instance<HeaderValueGenerator> generators;
 
-    void init(ExecutionContext<?, ?> context, Object originalEntity) {
+    AfterExecutionEventBean(ExecutionContext<?, ?> context) {
         this.context = context;
-        // process the original response headers
-        for (ResourceMethodResponseHeader h : context.getResponseMetadata()
-                .getResponseHeaders()) {
-            // create the generator.
-            this.headers.add(h.getName(), h.getType(), generators.select(h
-                    .getGenerator()).get().generateHeaderValue(h, context));
-        }
+    }
+
+    void init(ExecutionPlan plan, Object originalEntity) {
+        // process the original response headers with the compiled generators
+        plan.generateHeaders(context, this.headers);
         if (originalEntity instanceof Response) {
             this.currentStatus = ((Response<?>) originalEntity).getStatus();
             try {
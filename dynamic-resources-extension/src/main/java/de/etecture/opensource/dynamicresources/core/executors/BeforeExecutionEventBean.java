@@ -47,10 +47,10 @@ import de.etecture.opensource.dynamicresources.api.events.BeforeExecutionEvent;
 class BeforeExecutionEventBean implements
         BeforeExecutionEvent {
 
-    private ExecutionContext<?, ?> context;
+    private final ExecutionContext<?, ?> context;
     private Response<?> cancelingResponse = null;
 
-    void init(ExecutionContext<?, ?> context) {
+    BeforeExecutionEventBean(ExecutionContext<?, ?> context) {
         this.context = context;
     }
 
@@ -0,0 +1,242 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.executors;
+
+import de.etecture.opensource.dynamicresources.api.ExecutionContext;
+import de.etecture.opensource.dynamicresources.api.ResourceException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import javax.enterprise.inject.spi.AnnotatedParameter;
+
+/**
+ * invokes an {@link ExecutionMethod} on its bean.
+ * <p>
+ * the method handle is bound to the bean, unless the method is static, and the
+ * layout of the arguments is computed once, so an invocation just fills the
+ * argument slots from the {@link ExecutionContext} and calls the method
+ * directly. Exceptions thrown by the execution method are not wrapped. An
+ * argument, that does not fit its parameter, is rejected before the call with
+ * an {@link IllegalArgumentException} wrapped in a {@link ResourceException}
+ * like {@link Method#invoke} did.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class ExecutionMethodInvoker {
+
+    private static final int NONE = 0;
+    private static final int CONTEXT = 1;
+    private static final int BODY = 2;
+    private static final int PARAMETER = 3;
+    private final MethodHandle handle;
+    private final int[] layout;
+    private final String[] parameterNames;
+    private final Class<?>[] parameterTypes;
+
+    private ExecutionMethodInvoker(MethodHandle handle, int[] layout,
+            String[] parameterNames, Class<?>[] parameterTypes) {
+        this.handle = handle;
+        this.layout = layout;
+        this.parameterNames = parameterNames;
+        this.parameterTypes = parameterTypes;
+    }
+
+    /**
+     * compiles the invoker for the given execution method and bean.
+     *
+     * @param <T>
+     * @param method
+     * @param bean
+     * @return
+     * @throws IllegalAccessException
+     */
+    static <T> ExecutionMethodInvoker compile(ExecutionMethod<T> method,
+            T bean) throws IllegalAccessException {
+        Method javaMethod = method.getJavaMember();
+        int count = javaMethod.getParameterTypes().length;
+        int[] layout = new int[count];
+        String[] parameterNames = new String[count];
+        if (method.getExecutionContextArgument() != null) {
+            layout[method.getExecutionContextArgument().getPosition()] =
+                    CONTEXT;
+        }
+        if (method.getBodyArgument() != null) {
+            layout[method.getBodyArgument().getPosition()] = BODY;
+        }
+        for (Map.Entry<AnnotatedParameter<T>, String> e : method
+                .getParameterArguments().entrySet()) {
+            layout[e.getKey().getPosition()] = PARAMETER;
+            parameterNames[e.getKey().getPosition()] = e.getValue();
+        }
+        if (!javaMethod.isAccessible()) {
+            javaMethod.setAccessible(true);
+        }
+        MethodHandle handle = MethodHandles.lookup().unreflect(javaMethod);
+        if (!Modifier.isStatic(javaMethod.getModifiers())) {
+            handle = handle.bindTo(bean);
+        }
+        handle = handle.asSpreader(Object[].class, count)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+        return new ExecutionMethodInvoker(handle, layout, parameterNames,
+                javaMethod.getParameterTypes());
+    }
+
+    /**
+     * invokes the execution method with the arguments from the given context.
+     *
+     * @param context
+     * @return the result of the execution method.
+     * @throws Exception the exception, that the execution method has thrown.
+     */
+    Object invoke(ExecutionContext<?, ?> context) throws Exception {
+        Object[] arguments = new Object[layout.length];
+        for (int i = 0; i < layout.length; i++) {
+            switch (layout[i]) {
+                case CONTEXT:
+                    arguments[i] = context;
+                    break;
+                case BODY:
+                    arguments[i] = context.getBody();
+                    break;
+                case PARAMETER:
+                    arguments[i] = context.getParameterValue(
+                            parameterNames[i]);
+                    break;
+                case NONE:
+                default:
+                    break;
+            }
+            checkArgument(i, arguments[i]);
+        }
+        try {
+            return (Object) handle.invokeExact(arguments);
+        } catch (Exception | Error ex) {
+            throw ex;
+        } catch (Throwable t) {
+            throw new ResourceException("cannot call the execution method!", t);
+        }
+    }
+
+    /**
+     * rejects the argument, if it cannot be passed to the parameter like
+     * {@link Method#invoke} would do: a primitive parameter takes a wrapper,
+     * whose value can be widened to it, but no null.
+     *
+     * @param index
+     * @param argument
+     * @throws ResourceException
+     */
+    private void checkArgument(int index, Object argument) throws
+            ResourceException {
+        Class<?> type = parameterTypes[index];
+        String problem = null;
+        if (argument == null) {
+            if (type.isPrimitive()) {
+                problem = "null is not allowed for the primitive parameter "
+                        + index;
+            }
+        } else if (type.isPrimitive()
+                ? !widens(unwrap(argument.getClass()), type)
+                : !type.isInstance(argument)) {
+            problem = "parameter " + index + " is of type " + type.getName()
+                    + ", but the argument is of type " + argument.getClass()
+                    .getName();
+        }
+        if (problem != null) {
+            throw new ResourceException("cannot call the execution method!",
+                    new IllegalArgumentException(problem));
+        }
+    }
+
+    private static Class<?> unwrap(Class<?> type) {
+        if (type == Integer.class) {
+            return int.class;
+        } else if (type == Long.class) {
+            return long.class;
+        } else if (type == Boolean.class) {
+            return boolean.class;
+        } else if (type == Double.class) {
+            return double.class;
+        } else if (type == Float.class) {
+            return float.class;
+        } else if (type == Short.class) {
+            return short.class;
+        } else if (type == Byte.class) {
+            return byte.class;
+        } else if (type == Character.class) {
+            return char.class;
+        }
+        return null;
+    }
+
+    private static boolean widens(Class<?> from, Class<?> to) {
+        if (from == null) {
+            return false;
+        } else if (from == to) {
+            return true;
+        } else if (from == boolean.class || to == boolean.class
+                || to == char.class) {
+            return false;
+        } else if (from == char.class) {
+            return rank(to) >= rank(int.class);
+        }
+        return rank(from) < rank(to);
+    }
+
+    private static int rank(Class<?> type) {
+        if (type == byte.class) {
+            return 1;
+        } else if (type == short.class) {
+            return 2;
+        } else if (type == int.class) {
+            return 3;
+        } else if (type == long.class) {
+            return 4;
+        } else if (type == float.class) {
+            return 5;
+        }
+        return 6;
+    }
+}
@@ -40,12 +40,9 @@
 package de.etecture.opensource.dynamicresources.core.executors;
 
 import de.etecture.opensource.dynamicresources.api.ExecutionContext;
-import de.etecture.opensource.dynamicresources.api.ResourceException;
-import java.lang.reflect.InvocationTargetException;
-import java.util.Map;
 import javax.annotation.PostConstruct;
+import javax.enterprise.inject.CreationException;
 import javax.enterprise.inject.Instance;
-import javax.enterprise.inject.spi.AnnotatedParameter;
 import javax.inject.Inject;
 
 /**
@@ -58,7 +55,7 @@ import javax.inject.Inject;
 public class ExecutionMethodResourceMethodExecutor<T> extends AbstractResourceMethodExecutor {
 
     private final ExecutionMethod<T> method;
-    private T bean;
+    private ExecutionMethodInvoker invoker;
     @Inject
     Instance<Object> instances;
 
@@ -74,38 +71,18 @@ public class ExecutionMethodResourceMethodExecutor<T> extends AbstractResourceMe
     public void setupBean() {
         // get the type of the bean
         Class<T> beanType = method.getDeclaringType().getJavaClass();
-        // select the bean
-        bean = instances.select(beanType).get();
+        // select the bean and compile the invoker for it
+        try {
+            invoker = ExecutionMethodInvoker.compile(method, instances.select(
+                    beanType).get());
+        } catch (IllegalAccessException ex) {
+            throw new CreationException(ex);
+        }
     }
 
     @Override
     protected <R, B> R getEntity(
             ExecutionContext<R, B> context) throws Exception {
-        // assemble the arguments...
-        Object[] arguments = new Object[method.getParameters().size()];
-        if (method.getExecutionContextArgument() != null) {
-            arguments[method.getExecutionContextArgument().getPosition()] =
-                    context;
-        }
-        if (method.getBodyArgument() != null) {
-            arguments[method.getBodyArgument().getPosition()] = context
-                    .getBody();
-        }
-        for (Map.Entry<AnnotatedParameter<T>, String> e : method
-                .getParameterArguments().entrySet()) {
-            arguments[e.getKey().getPosition()] = context.getParameterValue(e
-                    .getValue());
-        }
-        // invoke the method now.
-        if (!method.getJavaMember().isAccessible()) {
-            method.getJavaMember().setAccessible(true);
-        }
-        try {
-            Object result = method.getJavaMember().invoke(bean, arguments);
-            return (R) result;
-        } catch (IllegalAccessException | IllegalArgumentException |
-                InvocationTargetException ex) {
-            throw new ResourceException("cannot call the execution method!", ex);
-        }
+        return (R) invoker.invoke(context);
     }
 }
@@ -0,0 +1,174 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.executors;
+
+import de.etecture.opensource.dynamicresources.metadata.Application;
+import de.etecture.opensource.dynamicresources.metadata.Resource;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethod;
+import de.etecture.opensource.dynamicresources.utils.ApplicationLiteral;
+import de.etecture.opensource.dynamicresources.utils.FailedLiteral;
+import de.etecture.opensource.dynamicresources.utils.MethodLiteral;
+import de.etecture.opensource.dynamicresources.utils.ResourceLiteral;
+import de.etecture.opensource.dynamicresources.utils.SucceedLiteral;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.enterprise.inject.spi.BeanManager;
+
+/**
+ * records for each resource method, whether there are observers for its
+ * before and after execution events.
+ * <p>
+ * it is resolved once after the deployment validation, so an
+ * {@link ExecutionPlan} can skip the events, nobody observes.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public final class ExecutionObservers {
+
+    /**
+     * there are observers for the before execution event.
+     */
+    public static final int BEFORE = 1;
+    /**
+     * there are observers for the succeed after execution event.
+     */
+    public static final int SUCCEED = 2;
+    /**
+     * there are observers for the failed after execution event.
+     */
+    public static final int FAILED = 4;
+    private static final int ALL = BEFORE | SUCCEED | FAILED;
+    private final Map<ResourceMethod, Integer> observed;
+
+    private ExecutionObservers(Map<ResourceMethod, Integer> observed) {
+        this.observed = observed;
+    }
+
+    /**
+     * resolves the observers for all the resource methods of the given
+     * applications.
+     *
+     * @param beanManager
+     * @param applications
+     * @return
+     */
+    public static ExecutionObservers resolve(BeanManager beanManager,
+            Iterable<? extends Application> applications) {
+        Map<ResourceMethod, Integer> observed = new IdentityHashMap<>();
+        // the events are only used to determine the event types.
+        BeforeExecutionEventBean before = new BeforeExecutionEventBean(null);
+        AfterExecutionEventBean after = new AfterExecutionEventBean(null);
+        for (Application application : applications) {
+            for (Resource resource : application.getResources().values()) {
+                for (ResourceMethod method : resource.getMethods().values()) {
+                    Annotation[] qualifiers = qualifiersOf(method);
+                    int flags = 0;
+                    if (!beanManager.resolveObserverMethods(before, qualifiers)
+                            .isEmpty()) {
+                        flags |= BEFORE;
+                    }
+                    if (!beanManager.resolveObserverMethods(after, with(
+                            qualifiers, new SucceedLiteral())).isEmpty()) {
+                        flags |= SUCCEED;
+                    }
+                    if (!beanManager.resolveObserverMethods(after, with(
+                            qualifiers, new FailedLiteral())).isEmpty()) {
+                        flags |= FAILED;
+                    }
+                    observed.put(method, flags);
+                }
+            }
+        }
+        return new ExecutionObservers(Collections.unmodifiableMap(observed));
+    }
+
+    /**
+     * returns an instance, that assumes observers for every event.
+     *
+     * @return
+     */
+    public static ExecutionObservers all() {
+        return new ExecutionObservers(
+                Collections.<ResourceMethod, Integer>emptyMap());
+    }
+
+    /**
+     * checks, if there are observers for the given events of the resource
+     * method.
+     * <p>
+     * a resource method, that was not resolved, is always observed.
+     *
+     * @param method
+     * @param events one or more of {@link #BEFORE}, {@link #SUCCEED} and
+     * {@link #FAILED}
+     * @return
+     */
+    public boolean isObserved(ResourceMethod method, int events) {
+        Integer flags = observed.get(method);
+        return ((flags == null ? ALL : flags) & events) != 0;
+    }
+
+    /**
+     * returns the qualifiers, the execution events of the given resource
+     * method are fired with.
+     *
+     * @param method
+     * @return
+     */
+    static Annotation[] qualifiersOf(ResourceMethod method) {
+        return new Annotation[]{
+            new ApplicationLiteral(method.getResource().getApplication()
+            .getName()),
+            new ResourceLiteral(method.getResource()),
+            new MethodLiteral(method.getName())};
+    }
+
+    private static Annotation[] with(Annotation[] qualifiers,
+            Annotation qualifier) {
+        Annotation[] result = Arrays.copyOf(qualifiers, qualifiers.length + 1);
+        result[qualifiers.length] = qualifier;
+        return result;
+    }
+}
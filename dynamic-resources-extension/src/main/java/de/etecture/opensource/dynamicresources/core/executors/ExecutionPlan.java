@@ -0,0 +1,174 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.executors;
+
+import de.etecture.opensource.dynamicresources.api.ExecutionContext;
+import de.etecture.opensource.dynamicresources.api.FilterValueGenerator;
+import de.etecture.opensource.dynamicresources.api.HeaderValueGenerator;
+import de.etecture.opensource.dynamicresources.api.ParameterLayout;
+import de.etecture.opensource.dynamicresources.api.ResourceException;
+import de.etecture.opensource.dynamicresources.api.Response;
+import de.etecture.opensource.dynamicresources.api.events.AfterExecutionEvent;
+import de.etecture.opensource.dynamicresources.api.events.BeforeExecutionEvent;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodFilter;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponse;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponseHeader;
+import de.etecture.opensource.dynamicresources.utils.HeaderValueMap;
+import javax.enterprise.event.Event;
+
+/**
+ * the compiled execution of a {@link ResourceMethodResponse}.
+ * <p>
+ * it holds everything that is needed to execute the resource method, that is
+ * resolved by the container once: the {@link ResourceMethodExecutor}, the
+ * generators for the filters and the response headers, and the qualified
+ * events for the before and after execution events. An event, that nobody
+ * observes for the resource method, is null and not fired at all.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public final class ExecutionPlan {
+
+    private final ResourceMethodResponse<?> responseMetadata;
+    private final ResourceMethodExecutor executor;
+    private final ResourceMethodFilter<?>[] filters;
+    private final FilterValueGenerator[] filterGenerators;
+    private final ParameterLayout layout;
+    private final ResourceMethodResponseHeader[] headers;
+    private final HeaderValueGenerator[] headerGenerators;
+    private final Event<BeforeExecutionEvent> beforeEvents;
+    private final Event<AfterExecutionEvent> succeedEvents;
+    private final Event<AfterExecutionEvent> failedEvents;
+
+    ExecutionPlan(ResourceMethodResponse<?> responseMetadata,
+            ResourceMethodExecutor executor,
+            ResourceMethodFilter<?>[] filters,
+            FilterValueGenerator[] filterGenerators,
+            ResourceMethodResponseHeader[] headers,
+            HeaderValueGenerator[] headerGenerators,
+            Event<BeforeExecutionEvent> beforeEvents,
+            Event<AfterExecutionEvent> succeedEvents,
+            Event<AfterExecutionEvent> failedEvents) {
+        this.responseMetadata = responseMetadata;
+        this.executor = executor;
+        this.filters = filters;
+        this.filterGenerators = filterGenerators;
+        this.layout = ParameterLayout.of(filters);
+        this.headers = headers;
+        this.headerGenerators = headerGenerators;
+        this.beforeEvents = beforeEvents;
+        this.succeedEvents = succeedEvents;
+        this.failedEvents = failedEvents;
+    }
+
+    /**
+     * returns the response metadata, this plan was compiled for.
+     *
+     * @return
+     */
+    public ResourceMethodResponse<?> getResponseMetadata() {
+        return responseMetadata;
+    }
+
+    /**
+     * returns the layout of the filter values, that contexts for this plan
+     * should be created with.
+     *
+     * @return
+     */
+    public ParameterLayout getParameterLayout() {
+        return layout;
+    }
+
+    /**
+     * generates the filter values into the given context and executes the
+     * resource method.
+     *
+     * @param <R>
+     * @param <B>
+     * @param context
+     * @return
+     * @throws ResourceException
+     */
+    public <R, B> Response<R> execute(ExecutionContext<R, B> context) throws
+            ResourceException {
+        if (context.getParameterLayout() == layout) {
+            for (int i = 0; i < filters.length; i++) {
+                context.setFilterValue(i,
+                        filterGenerators[i].generate(filters[i], context));
+            }
+        } else {
+            for (int i = 0; i < filters.length; i++) {
+                context.setParameterValue(filters[i].getName(),
+                        filterGenerators[i].generate(filters[i], context));
+            }
+        }
+        return executor.execute(this, context);
+    }
+
+    boolean isBeforeObserved() {
+        return beforeEvents != null;
+    }
+
+    void fireBefore(BeforeExecutionEvent event) {
+        if (beforeEvents != null) {
+            beforeEvents.fire(event);
+        }
+    }
+
+    void fireAfter(AfterExecutionEvent event, boolean succeed) {
+        Event<AfterExecutionEvent> events = succeed ? succeedEvents
+                : failedEvents;
+        if (events != null) {
+            events.fire(event);
+        }
+    }
+
+    void generateHeaders(ExecutionContext<?, ?> context,
+            HeaderValueMap target) {
+        for (int i = 0; i < headers.length; i++) {
+            target.add(headers[i].getName(), headers[i].getType(),
+                    headerGenerators[i].generateHeaderValue(headers[i],
+                    context));
+        }
+    }
+}
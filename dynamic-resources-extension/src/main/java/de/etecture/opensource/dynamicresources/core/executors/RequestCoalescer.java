@@ -0,0 +1,315 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.executors;
+
+import de.etecture.opensource.dynamicresources.api.ResourceException;
+import de.etecture.opensource.dynamicresources.api.Response;
+import de.etecture.opensource.dynamicresources.api.ResponseException;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponse;
+import de.etecture.opensource.dynamicresources.utils.CaseInsensitiveArrayMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * executes identical requests, that arrive concurrently, only once.
+ * <p>
+ * the first request for a key is the leader and executes the resource method.
+ * All requests for the same key, that arrive while the leader is executing,
+ * wait for its response and share it. If the leader fails, its exception is
+ * thrown to the waiting requests, too. If it does not finish within the
+ * timeout, one of the waiting requests becomes the new leader and the others
+ * wait for it, so a slow resource is not executed by all of them at once.
+ * <p>
+ * the leader returns the response as it is. Each waiting request gets a
+ * read-only snapshot of the status and the headers, so nothing is copied, if
+ * no request waits. The entity itself is shared as it is, so it must not be
+ * modified after it was returned.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class RequestCoalescer {
+
+    /**
+     * the execution of a request.
+     *
+     * @param <R>
+     */
+    interface Execution<R> {
+
+        Response<R> execute() throws ResourceException;
+    }
+
+    private final ConcurrentMap<Key, Flight> flights = new ConcurrentHashMap<>();
+
+    /**
+     * builds the key of a request.
+     *
+     * @param responseMetadata
+     * @param parameters the path and query parameters, that must not be
+     * modified during the execution.
+     * @param identity the principal and the roles of the user.
+     * @return
+     */
+    static Key key(ResourceMethodResponse<?> responseMetadata,
+            Map<String, Object> parameters, String identity) {
+        return new Key(responseMetadata, parameters, identity);
+    }
+
+    /**
+     * executes the request or waits for the identical request, that is
+     * executing already.
+     *
+     * @param <R>
+     * @param key
+     * @param timeout the milliseconds to wait for a leader.
+     * @param execution
+     * @return
+     * @throws ResourceException the exception of this request or of the
+     * leader.
+     */
+    @SuppressWarnings("unchecked")
+    <R> Response<R> execute(Key key, long timeout, Execution<R> execution)
+            throws ResourceException {
+        Flight flight = new Flight();
+        Flight leader = flights.putIfAbsent(key, flight);
+        while (leader != null) {
+            switch (leader.await(timeout)) {
+                case DONE:
+                    return new SharedResponse<>((Response<R>) leader
+                            .getResponse());
+                case INTERRUPTED:
+                    return execution.execute();
+                default:
+                    // the leader is too slow, so try to lead the others.
+                    leader = flights.replace(key, leader, flight) ? null
+                            : flights.putIfAbsent(key, flight);
+            }
+        }
+        try {
+            Response<R> response = execution.execute();
+            flight.response = response;
+            return response;
+        } catch (ResourceException | RuntimeException | Error ex) {
+            flight.failure = ex;
+            throw ex;
+        } finally {
+            flights.remove(key, flight);
+            flight.done.countDown();
+        }
+    }
+
+    /**
+     * the outcome of waiting for a leader.
+     */
+    private enum Outcome {
+
+        DONE,
+        TIMEOUT,
+        INTERRUPTED
+    }
+
+    /**
+     * the execution of a leader.
+     */
+    private static final class Flight {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Response<?> response;
+        private volatile Throwable failure;
+
+        Outcome await(long timeout) {
+            try {
+                return done.await(timeout, TimeUnit.MILLISECONDS)
+                        ? Outcome.DONE : Outcome.TIMEOUT;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return Outcome.INTERRUPTED;
+            }
+        }
+
+        /**
+         * returns the response of the leader or throws its exception. The
+         * exception is the same instance for all waiting requests.
+         */
+        Response<?> getResponse() throws ResourceException {
+            if (failure instanceof ResourceException) {
+                throw (ResourceException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            return response;
+        }
+    }
+
+    /**
+     * identifies the request by the response metadata, the parameters and the
+     * identity of the user.
+     * <p>
+     * the parameters are not copied, but the values of an array are compared
+     * instead of its identity.
+     */
+    static final class Key {
+
+        private final ResourceMethodResponse<?> responseMetadata;
+        private final Map<String, Object> parameters;
+        private final String identity;
+        private final int hash;
+
+        private Key(ResourceMethodResponse<?> responseMetadata,
+                Map<String, Object> parameters, String identity) {
+            this.responseMetadata = responseMetadata;
+            this.parameters = parameters;
+            this.identity = identity;
+            int parametersHash = 0;
+            for (Map.Entry<String, Object> e : parameters.entrySet()) {
+                // the sum does not depend on the order of the entries.
+                parametersHash += e.getKey().hashCode() ^ hashOf(e
+                        .getValue());
+            }
+            this.hash = 31 * (31 * System.identityHashCode(responseMetadata)
+                    + parametersHash) + identity.hashCode();
+        }
+
+        private boolean sameParameters(Map<String, Object> other) {
+            if (parameters.size() != other.size()) {
+                return false;
+            }
+            for (Map.Entry<String, Object> e : parameters.entrySet()) {
+                Object value = other.get(e.getKey());
+                if ((value == null && !other.containsKey(e.getKey()))
+                        || !equal(e.getValue(), value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hashOf(Object value) {
+            if (value instanceof Object[]) {
+                return Arrays.deepHashCode((Object[]) value);
+            }
+            return value == null ? 0 : value.hashCode();
+        }
+
+        private static boolean equal(Object value, Object other) {
+            if (value instanceof Object[] && other instanceof Object[]) {
+                return Arrays.deepEquals((Object[]) value, (Object[]) other);
+            }
+            return value == null ? other == null : value.equals(other);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return responseMetadata == other.responseMetadata
+                    && hash == other.hash
+                    && identity.equals(other.identity)
+                    && sameParameters(other.parameters);
+        }
+    }
+
+    /**
+     * a read-only snapshot of a response.
+     *
+     * @param <R>
+     */
+    private static final class SharedResponse<R> implements Response<R> {
+
+        private final Response<R> response;
+        private final int status;
+        private final Map<String, List<Object>> headers;
+
+        SharedResponse(Response<R> response) {
+            this.response = response;
+            this.status = response.getStatus();
+            Map<String, List<Object>> copy = new CaseInsensitiveArrayMap<>();
+            for (Map.Entry<String, List<Object>> e : response.getHeaders()) {
+                copy.put(e.getKey(), Collections.unmodifiableList(
+                        new ArrayList<>(e.getValue())));
+            }
+            this.headers = Collections.unmodifiableMap(copy);
+        }
+
+        @Override
+        public R getEntity() throws ResponseException {
+            return response.getEntity();
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public List<Object> getHeader(String headerName) {
+            List<Object> values = headers.get(headerName);
+            if (values != null) {
+                return values;
+            } else {
+                return Collections.emptyList();
+            }
+        }
+
+        @Override
+        public Set<Map.Entry<String, List<Object>>> getHeaders() {
+            return headers.entrySet();
+        }
+    }
+}
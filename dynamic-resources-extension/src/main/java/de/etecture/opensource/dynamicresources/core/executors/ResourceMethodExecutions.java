@@ -39,21 +39,38 @@
  */
 package de.etecture.opensource.dynamicresources.core.executors;
 
-import de.etecture.opensource.dynamicresources.annotations.Application;
-import de.etecture.opensource.dynamicresources.annotations.Method;
-import de.etecture.opensource.dynamicresources.annotations.Resource;
+import de.etecture.opensource.dynamicresources.annotations.Failed;
+import de.etecture.opensource.dynamicresources.annotations.Succeed;
 import de.etecture.opensource.dynamicresources.api.ExecutionContext;
 import de.etecture.opensource.dynamicresources.api.FilterValueGenerator;
+import de.etecture.opensource.dynamicresources.api.HttpMethods;
+import de.etecture.opensource.dynamicresources.api.ParameterLayout;
+import de.etecture.opensource.dynamicresources.api.HeaderValueGenerator;
 import de.etecture.opensource.dynamicresources.api.ResourceException;
 import de.etecture.opensource.dynamicresources.api.Response;
+import de.etecture.opensource.dynamicresources.api.SecurityContext;
+import de.etecture.opensource.dynamicresources.api.events.AfterExecutionEvent;
+import de.etecture.opensource.dynamicresources.api.events.BeforeExecutionEvent;
+import de.etecture.opensource.dynamicresources.core.RequestSecurity;
+import de.etecture.opensource.dynamicresources.core.scanner.ResourceMetadataScanner;
+import de.etecture.opensource.dynamicresources.metadata.Application;
+import de.etecture.opensource.dynamicresources.metadata.Resource;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethod;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodFilter;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodRequest;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponse;
-import de.etecture.opensource.dynamicresources.utils.ApplicationLiteral;
-import de.etecture.opensource.dynamicresources.utils.MethodLiteral;
-import de.etecture.opensource.dynamicresources.utils.ResourceLiteral;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponseHeader;
+import java.lang.annotation.Annotation;
 import java.util.Map;
-import javax.enterprise.inject.Default;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Event;
 import javax.enterprise.inject.Instance;
 import javax.inject.Inject;
 
@@ -61,61 +78,292 @@ import javax.inject.Inject;
  * this is the base class that is responsible to executes any resource method
  * executions.
  * <p>
- * it builds the execution context, selects the appropriate
- * {@link ResourceMethodExecutor} and delegates the invocation to the selected
- * ResourceMethodExecutor.
+ * it compiles an {@link ExecutionPlan} for each resource method response of
+ * all applications after the deployment, builds the execution context and
+ * delegates the invocation to the plan. So the executor, the filter and header
+ * generators and the qualified events are not resolved per request anymore.
+ * The events are only selected, if the {@link ExecutionObservers} resolved by
+ * the {@link ResourceMetadataScanner} report observers for them.
+ * <p>
+ * the generators are shared by all plans, one instance per generator class,
+ * and released together with this bean.
+ * <p>
+ * identical GET requests without a body of the methods, that are
+ * {@link ResourceMethod#isCoalesced() coalesced}, are executed only once by a
+ * {@link RequestCoalescer}, if they arrive concurrently. Requests are
+ * identical, if they have the same response metadata, parameters, user
+ * principal and roles. The user is taken from the request, that the servlet
+ * handles on the current thread, else from the {@link SecurityContext} of the
+ * container. Without any caller, e.g. in a timer, the internal invocations
+ * share the identity of the system.
+ * <p>
+ * the executions of all other methods than GET, HEAD, OPTIONS and TRACE are
+ * counted as {@link #getModifications() modifications}, no matter if they are
+ * requested by the servlet or invoked internally.
  *
  * @author rhk
  * @version
  * @since
  */
-@Default
+@ApplicationScoped
 public class ResourceMethodExecutions {
 
+    private static final Logger LOG = Logger.getLogger(
+            ResourceMethodExecutions.class.getName());
+    private static final long DEFAULT_COALESCING_TIMEOUT = 10000L;
+    private static final String SYSTEM_IDENTITY = "system";
+    @Inject
+    ResourceMetadataScanner scanner;
+    @Inject
+    Instance<Application> allApplications;
     @Inject
     Instance<ResourceMethodExecutor> allExecutors;
     @Inject
-    Instance<FilterValueGenerator> generators;
+    Instance<FilterValueGenerator> filterGenerators;
+    @Inject
+    Instance<HeaderValueGenerator> headerGenerators;
+    @Inject
+    Instance<SecurityContext> securityContexts;
+    @Inject
+    Event<BeforeExecutionEvent> beforeEvents;
+    @Inject
+    @Succeed
+    Event<AfterExecutionEvent> afterSuccessEvents;
+    @Inject
+    @Failed
+    Event<AfterExecutionEvent> afterFailedEvents;
+    private final ConcurrentMap<ResourceMethodResponse<?>, ExecutionPlan> plans
+            = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, FilterValueGenerator> createdFilterGenerators
+            = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, HeaderValueGenerator> createdHeaderGenerators
+            = new ConcurrentHashMap<>();
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final ConcurrentMap<Application, Long> coalescingTimeouts
+            = new ConcurrentHashMap<>();
+    private final AtomicLong modifications = new AtomicLong();
+
+    @PostConstruct
+    void compilePlans() {
+        for (Application application : allApplications) {
+            for (Resource resource : application.getResources().values()) {
+                for (ResourceMethod method : resource.getMethods().values()) {
+                    for (ResourceMethodResponse<?> response : method
+                            .getResponses().values()) {
+                        try {
+                            plans.put(response, compile(response));
+                        } catch (RuntimeException ex) {
+                            // leave it to the first request, to report it.
+                            LOG.log(Level.FINE, String.format(
+                                    "cannot compile the execution plan for %s %s of resource: %s",
+                                    method.getName(), response
+                                    .getResponseType().getSimpleName(),
+                                    resource.getName()), ex);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void releaseGenerators() {
+        plans.clear();
+        release(filterGenerators, createdFilterGenerators);
+        release(headerGenerators, createdHeaderGenerators);
+    }
 
-    public <R, B> Response<R> execute(ResourceMethodResponse<R> responseMetadata,
+    public <R, B> Response<R> execute(
+            final ResourceMethodResponse<R> responseMetadata,
+            final ResourceMethodRequest<B> requestMetadata, final B body,
+            final Map<String, Object> parameters) throws ResourceException {
+        ResourceMethod method = responseMetadata.getMethod();
+        if (modifies(method.getName())) {
+            try {
+                return executeNow(responseMetadata, requestMetadata, body,
+                        parameters);
+            } finally {
+                // count it, even if it failed, as it may have modified a part.
+                modifications.incrementAndGet();
+            }
+        }
+        if (body != null || !method.isCoalesced() || !HttpMethods.GET.equals(
+                method.getName())) {
+            return executeNow(responseMetadata, requestMetadata, body,
+                    parameters);
+        }
+        Application application = method.getResource().getApplication();
+        Long timeout = coalescingTimeouts.get(application);
+        return coalescer.execute(RequestCoalescer.key(responseMetadata,
+                parameters, getIdentity(application)), timeout == null
+                ? DEFAULT_COALESCING_TIMEOUT : timeout,
+                new RequestCoalescer.Execution<R>() {
+            @Override
+            public Response<R> execute() throws ResourceException {
+                return executeNow(responseMetadata, requestMetadata, body,
+                        parameters);
+            }
+        });
+    }
+
+    private <R, B> Response<R> executeNow(
+            ResourceMethodResponse<R> responseMetadata,
             ResourceMethodRequest<B> requestMetadata, B body,
             Map<String, Object> parameters) throws ResourceException {
+        ExecutionPlan plan = getPlan(responseMetadata);
         // build the execution context
         ExecutionContext<R, B> context = buildExecutionContext(responseMetadata,
-                requestMetadata, body, parameters);
-
-        // process the filters for the resource method
-        for (ResourceMethodFilter<?> f : responseMetadata.getMethod()
-                .getFilters()) {
-            final Object value
-                    = generators.select(f
-                            .getValueGenerator()).get().generate(f, context);
-            context.setParameterValue(f.getName(), value);
+                requestMetadata, body, parameters, plan.getParameterLayout());
+
+        // execute
+        return plan.execute(context);
+    }
+
+    /**
+     * returns the number of the executed methods, that may have modified a
+     * resource. A response, that was rendered before this number changed, may
+     * be outdated.
+     *
+     * @return
+     */
+    public long getModifications() {
+        return modifications.get();
+    }
+
+    private static boolean modifies(String methodName) {
+        return !HttpMethods.GET.equals(methodName) && !HttpMethods.HEAD.equals(
+                methodName) && !HttpMethods.OPTIONS.equals(methodName)
+                && !HttpMethods.TRACE.equals(methodName);
+    }
+
+    /**
+     * returns the compiled execution plan for the given response metadata.
+     *
+     * @param responseMetadata
+     * @return
+     */
+    public ExecutionPlan getPlan(ResourceMethodResponse<?> responseMetadata) {
+        ExecutionPlan plan = plans.get(responseMetadata);
+        if (plan == null) {
+            plan = compile(responseMetadata);
+            ExecutionPlan existing = plans.putIfAbsent(responseMetadata, plan);
+            if (existing != null) {
+                plan = existing;
+            }
         }
+        return plan;
+    }
 
-        // resolve the executor
-        ResourceMethodExecutor executor = resolve(context);
+    /**
+     * sets the milliseconds, a coalesced request of the given application
+     * waits for the identical one, before it executes on its own.
+     *
+     * @param application
+     * @param timeout
+     */
+    public void setCoalescingTimeout(Application application, long timeout) {
+        coalescingTimeouts.put(application, timeout);
+    }
 
-        // execute
-        return executor.execute(context);
+    /**
+     * returns the identity of the current user, as it is used by the
+     * response cache of the servlet.
+     *
+     * @param application
+     * @return
+     */
+    private String getIdentity(Application application) {
+        RequestSecurity security = RequestSecurity.current();
+        if (security != null) {
+            return security.getIdentity(application.getDeclaredRoleNames());
+        }
+        if (securityContexts.isUnsatisfied() || securityContexts
+                .isAmbiguous()) {
+            return SYSTEM_IDENTITY;
+        }
+        try {
+            SecurityContext context = securityContexts.get();
+            try {
+                return RequestSecurity.identityOf(context, application
+                        .getDeclaredRoleNames());
+            } finally {
+                // the security context may be dependent, so release it.
+                securityContexts.destroy(context);
+            }
+        } catch (RuntimeException ex) {
+            // e.g. no request context is active, so there is no caller.
+            LOG.log(Level.FINEST, "no security context is available.", ex);
+            return SYSTEM_IDENTITY;
+        }
     }
 
     private <R, B> ExecutionContext<R, B> buildExecutionContext(
             ResourceMethodResponse<R> responseMetadata,
             ResourceMethodRequest<B> requestMetadata, B body,
-            Map<String, Object> parameters) {
+            Map<String, Object> parameters, ParameterLayout layout) {
         return new ExecutionContext(
                 responseMetadata,
-                requestMetadata, body, parameters);
+                requestMetadata, body, parameters, layout);
     }
 
-    private <R, B> ResourceMethodExecutor resolve(ExecutionContext<R, B> context) {
-        // build the literals
-        Application application = new ApplicationLiteral(context
-                .getResourceMethod().getResource().getApplication().getName());
-        Resource resource = new ResourceLiteral(context.getResourceMethod()
-                .getResource());
-        Method method = new MethodLiteral(context.getResourceMethod().getName());
-        return allExecutors.select(application, resource, method).get();
+    private ExecutionPlan compile(ResourceMethodResponse<?> responseMetadata) {
+        ResourceMethod resourceMethod = responseMetadata.getMethod();
+        // build the literals once
+        Annotation[] qualifiers = ExecutionObservers.qualifiersOf(
+                resourceMethod);
+        ExecutionObservers observers = scanner.getExecutionObservers();
+        // resolve the executor
+        ResourceMethodExecutor executor = allExecutors.select(qualifiers).get();
+        // resolve the filter generators
+        ResourceMethodFilter<?>[] filters = resourceMethod.getFilters().toArray(
+                new ResourceMethodFilter<?>[0]);
+        FilterValueGenerator[] filterValueGenerators
+                = new FilterValueGenerator[filters.length];
+        for (int i = 0; i < filters.length; i++) {
+            filterValueGenerators[i] = obtain(filterGenerators,
+                    createdFilterGenerators, filters[i].getValueGenerator());
+        }
+        // resolve the header generators
+        ResourceMethodResponseHeader[] headers = responseMetadata
+                .getResponseHeaders().toArray(
+                new ResourceMethodResponseHeader[0]);
+        HeaderValueGenerator[] headerValueGenerators
+                = new HeaderValueGenerator[headers.length];
+        for (int i = 0; i < headers.length; i++) {
+            headerValueGenerators[i] = obtain(headerGenerators,
+                    createdHeaderGenerators, headers[i].getGenerator());
+        }
+        return new ExecutionPlan(responseMetadata, executor, filters,
+                filterValueGenerators, headers, headerValueGenerators,
+                observers.isObserved(resourceMethod, ExecutionObservers.BEFORE)
+                ? beforeEvents.select(qualifiers) : null,
+                observers.isObserved(resourceMethod, ExecutionObservers.SUCCEED)
+                ? afterSuccessEvents.select(qualifiers) : null,
+                observers.isObserved(resourceMethod, ExecutionObservers.FAILED)
+                ? afterFailedEvents.select(qualifiers) : null);
+    }
+
+    private static <G> G obtain(Instance<G> instances,
+            ConcurrentMap<Class<?>, G> created, Class<? extends G> type) {
+        G generator = created.get(type);
+        if (generator == null) {
+            G obtained = instances.select(type).get();
+            generator = created.putIfAbsent(type, obtained);
+            if (generator == null) {
+                generator = obtained;
+            } else {
+                // another plan was faster, so release ours immediately.
+                instances.destroy(obtained);
+            }
+        }
+        return generator;
+    }
+
+    private static <G> void release(Instance<G> instances,
+            Map<Class<?>, G> created) {
+        for (G generator : created.values()) {
+            instances.destroy(generator);
+        }
+        created.clear();
     }
 }
@@ -54,15 +54,15 @@ import de.etecture.opensource.dynamicresources.api.ExecutionContext;
 public interface ResourceMethodExecutor {
 
     /**
-     * called by the {@link ResourceMethodExecutions} to execute the given
-     * context.
+     * called by the {@link ExecutionPlan} to execute the given context.
      *
      * @param <R>
      * @param <B>
+     * @param plan the compiled plan, this executor was resolved for.
      * @param context
      * @return
      * @throws ResourceException
      */
-    <R, B> Response<R> execute(ExecutionContext<R, B> context) throws
-            ResourceException;
+    <R, B> Response<R> execute(ExecutionPlan plan,
+            ExecutionContext<R, B> context) throws ResourceException;
 }
@@ -0,0 +1,399 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.mapping;
+
+import de.etecture.opensource.dynamicresources.annotations.Consumes;
+import de.etecture.opensource.dynamicresources.annotations.Produces;
+import de.etecture.opensource.dynamicresources.api.ByteRequestReader;
+import de.etecture.opensource.dynamicresources.api.ByteResponseWriter;
+import de.etecture.opensource.dynamicresources.api.MediaType;
+import de.etecture.opensource.dynamicresources.api.RequestReader;
+import de.etecture.opensource.dynamicresources.api.ResponseWriter;
+import de.etecture.opensource.dynamicresources.core.mapping.mime.MediaTypeExpression;
+import de.etecture.opensource.dynamicresources.core.scanner.ResourceMetadataScanner;
+import de.etecture.opensource.dynamicresources.metadata.MediaTypeAmbigiousException;
+import de.etecture.opensource.dynamicresources.metadata.MediaTypeNotAllowedException;
+import de.etecture.opensource.dynamicresources.metadata.MediaTypeNotSupportedException;
+import de.etecture.opensource.dynamicresources.utils.AnyLiteral;
+import de.etecture.opensource.dynamicresources.utils.BoundedCache;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.inject.Inject;
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * the registry of all {@link RequestReader}s, {@link ResponseWriter}s and
+ * their byte oriented variants {@link ByteRequestReader} and
+ * {@link ByteResponseWriter}.
+ * <p>
+ * it is built once from the reader and writer types collected by the
+ * {@link ResourceMetadataScanner}. The readers and writers are created when
+ * the registry is built, so resolving them never touches the
+ * {@link BeanManager}.
+ * <p>
+ * a reader or writer is resolved by walking the class hierarchy of the
+ * requested type, so the most specific one wins. For the same type, the byte
+ * oriented variant is preferred. The resolutions are cached per type and media
+ * type in a bounded cache.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+@ApplicationScoped
+public class ReaderWriterRegistry {
+
+    private static final Logger LOG = Logger.getLogger("ReaderWriterRegistry");
+    private static final int MAX_CACHED_RESOLUTIONS = 1024;
+    @Inject
+    BeanManager beanManager;
+    @Inject
+    ResourceMetadataScanner scanner;
+    private final List<CreatedInstance<?>> instances = new ArrayList<>();
+    private final BoundedCache<Key, Resolution<Object>> readerCache =
+            new BoundedCache<>(MAX_CACHED_RESOLUTIONS);
+    private final BoundedCache<Key, Resolution<Object>> writerCache =
+            new BoundedCache<>(MAX_CACHED_RESOLUTIONS);
+    private Map<Class<?>, List<Mapping<Object>>> readers;
+    private Map<Class<?>, List<Mapping<Object>>> writers;
+
+    @PostConstruct
+    void buildRegistry() {
+        Map<Class<?>, Consumes> readerTypes = scanner.getRequestReaderTypes();
+        Map<Class<?>, Produces> writerTypes = scanner.getResponseWriterTypes();
+        // lookup the beans for the scanned types once.
+        Map<Class<?>, Bean<?>> beans = new HashMap<>();
+        for (Bean<?> bean : beanManager.getBeans(Object.class, new AnyLiteral())) {
+            if (readerTypes.containsKey(bean.getBeanClass())
+                    || writerTypes.containsKey(bean.getBeanClass())) {
+                beans.put(bean.getBeanClass(), bean);
+            }
+        }
+        Map<Class<?>, List<Mapping<Object>>> readerTable = new HashMap<>();
+        for (Map.Entry<Class<?>, Consumes> e : readerTypes.entrySet()) {
+            Bean<?> bean = beans.get(e.getKey());
+            if (bean == null) {
+                LOG.log(Level.WARNING, "no bean found for request reader: {0}",
+                        e.getKey().getName());
+                continue;
+            }
+            add(readerTable, e.getValue().requestType(),
+                    new Mapping<Object>(
+                    create(bean),
+                    describe(bean),
+                    e.getValue().mimeType()));
+        }
+        Map<Class<?>, List<Mapping<Object>>> writerTable = new HashMap<>();
+        for (Map.Entry<Class<?>, Produces> e : writerTypes.entrySet()) {
+            Bean<?> bean = beans.get(e.getKey());
+            if (bean == null) {
+                LOG.log(Level.WARNING, "no bean found for response writer: {0}",
+                        e.getKey().getName());
+                continue;
+            }
+            add(writerTable, e.getValue().contentType(),
+                    new Mapping<Object>(
+                    create(bean),
+                    describe(bean),
+                    e.getValue().mimeType()));
+        }
+        this.readers = Collections.unmodifiableMap(readerTable);
+        this.writers = Collections.unmodifiableMap(writerTable);
+        LOG.log(Level.INFO,
+                "registered request readers for: {0} and response writers for: {1}",
+                new Object[]{readers.keySet(),
+            writers.keySet()});
+    }
+
+    @PreDestroy
+    void release() {
+        for (CreatedInstance<?> instance : instances) {
+            instance.destroy();
+        }
+        instances.clear();
+        readerCache.clear();
+        writerCache.clear();
+    }
+
+    /**
+     * resolves the request reader for the given type and media type.
+     *
+     * @param requestType
+     * @param contentType
+     * @return either a {@link ByteRequestReader} or a {@link RequestReader}.
+     * @throws MediaTypeNotAllowedException if there is no such reader.
+     */
+    public Object resolveReader(Class<?> requestType, MediaType contentType)
+            throws MediaTypeNotAllowedException {
+        Key key = new Key(requestType, contentType.toString());
+        Resolution<Object> resolution = readerCache.get(key);
+        if (resolution == null) {
+            resolution = readerCache.putIfAbsent(key, preferBytes(resolve(
+                    readers, requestType, contentType), ByteRequestReader.class));
+        }
+        if (resolution.isEmpty()) {
+            throw new MediaTypeNotAllowedException(contentType);
+        }
+        // readers are not ambigious, the first most specific one wins.
+        return resolution.first();
+    }
+
+    /**
+     * resolves the response writer for the given type and media type.
+     *
+     * @param responseType
+     * @param acceptedType
+     * @return either a {@link ByteResponseWriter} or a {@link ResponseWriter}.
+     * @throws MediaTypeNotSupportedException if there is no such writer.
+     * @throws MediaTypeAmbigiousException if there is more than one writer.
+     */
+    public Object resolveWriter(Class<?> responseType, MediaType acceptedType)
+            throws MediaTypeNotSupportedException, MediaTypeAmbigiousException {
+        Key key = new Key(responseType, acceptedType.toString());
+        Resolution<Object> resolution = writerCache.get(key);
+        if (resolution == null) {
+            resolution = writerCache.putIfAbsent(key, preferBytes(resolve(
+                    writers, responseType, acceptedType),
+                    ByteResponseWriter.class));
+        }
+        if (resolution.isEmpty()) {
+            throw new MediaTypeNotSupportedException(acceptedType);
+        } else if (resolution.isAmbigious()) {
+            throw new MediaTypeAmbigiousException(acceptedType, resolution
+                    .names());
+        }
+        return resolution.first();
+    }
+
+    private <X> X create(Bean<X> bean) {
+        CreationalContext<X> context = beanManager.createCreationalContext(bean);
+        X instance = bean.create(context);
+        instances.add(new CreatedInstance<>(bean, instance, context));
+        return instance;
+    }
+
+    private static String describe(Bean<?> bean) {
+        return StringUtils.defaultIfBlank(bean.getName(), bean.getBeanClass()
+                .toString());
+    }
+
+    private static <X> void add(Map<Class<?>, List<Mapping<X>>> table,
+            Class<?> type, Mapping<X> mapping) {
+        List<Mapping<X>> mappings = table.get(type);
+        if (mappings == null) {
+            mappings = new ArrayList<>();
+            table.put(type, mappings);
+        }
+        mappings.add(mapping);
+    }
+
+    private static <X> Resolution<X> resolve(
+            Map<Class<?>, List<Mapping<X>>> table, Class<?> type,
+            MediaType mediaType) {
+        for (Class<?> candidate : hierarchyOf(type)) {
+            List<Mapping<X>> mappings = table.get(candidate);
+            if (mappings != null) {
+                List<Mapping<X>> compatible = new ArrayList<>();
+                for (Mapping<X> mapping : mappings) {
+                    if (mediaType.isCompatibleTo(mapping.mediaTypes)) {
+                        compatible.add(mapping);
+                    }
+                }
+                if (!compatible.isEmpty()) {
+                    return new Resolution<>(compatible);
+                }
+            }
+        }
+        return new Resolution<>(Collections.<Mapping<X>>emptyList());
+    }
+
+    private static Resolution<Object> preferBytes(
+            Resolution<Object> resolution, Class<?> byteVariant) {
+        List<Mapping<Object>> preferred = new ArrayList<>();
+        for (Mapping<Object> mapping : resolution.candidates) {
+            if (byteVariant.isInstance(mapping.instance)) {
+                preferred.add(mapping);
+            }
+        }
+        if (preferred.isEmpty() || preferred.size() == resolution.candidates
+                .size()) {
+            return resolution;
+        }
+        return new Resolution<>(preferred);
+    }
+
+    /**
+     * returns the type, its superclasses and interfaces ordered by their
+     * distance to the type. Object is always the last one.
+     */
+    private static Set<Class<?>> hierarchyOf(Class<?> type) {
+        Set<Class<?>> hierarchy = new LinkedHashSet<>();
+        List<Class<?>> level = Collections.<Class<?>>singletonList(type);
+        while (!level.isEmpty()) {
+            List<Class<?>> next = new ArrayList<>();
+            for (Class<?> clazz : level) {
+                if (clazz != Object.class && hierarchy.add(clazz)) {
+                    if (clazz.getSuperclass() != null) {
+                        next.add(clazz.getSuperclass());
+                    }
+                    next.addAll(Arrays.asList(clazz.getInterfaces()));
+                }
+            }
+            level = next;
+        }
+        hierarchy.add(Object.class);
+        return hierarchy;
+    }
+
+    /**
+     * a reader or writer together with the media types it is responsible for.
+     */
+    private static final class Mapping<X> {
+
+        private final X instance;
+        private final String name;
+        private final MediaType[] mediaTypes;
+
+        Mapping(X instance, String name, String[] mimeTypes) {
+            this.instance = instance;
+            this.name = name;
+            this.mediaTypes = new MediaType[mimeTypes.length];
+            for (int i = 0; i < mimeTypes.length; i++) {
+                this.mediaTypes[i] = MediaTypeExpression.valueOf(mimeTypes[i]);
+            }
+        }
+    }
+
+    /**
+     * the cached outcome of a resolution.
+     */
+    private static final class Resolution<X> {
+
+        private final List<Mapping<X>> candidates;
+
+        Resolution(List<Mapping<X>> candidates) {
+            this.candidates = candidates;
+        }
+
+        boolean isEmpty() {
+            return candidates.isEmpty();
+        }
+
+        boolean isAmbigious() {
+            return candidates.size() > 1;
+        }
+
+        X first() {
+            return candidates.get(0).instance;
+        }
+
+        String[] names() {
+            String[] names = new String[candidates.size()];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = candidates.get(i).name;
+            }
+            return names;
+        }
+    }
+
+    /**
+     * a created reader or writer, that has to be destroyed at shutdown.
+     */
+    private static final class CreatedInstance<X> {
+
+        private final Bean<X> bean;
+        private final X instance;
+        private final CreationalContext<X> context;
+
+        CreatedInstance(Bean<X> bean, X instance, CreationalContext<X> context) {
+            this.bean = bean;
+            this.instance = instance;
+            this.context = context;
+        }
+
+        void destroy() {
+            bean.destroy(instance, context);
+        }
+    }
+
+    /**
+     * the key for the resolution cache.
+     */
+    private static final class Key {
+
+        private final Class<?> type;
+        private final String mediaType;
+        private final int hash;
+
+        Key(Class<?> type, String mediaType) {
+            this.type = type;
+            this.mediaType = mediaType;
+            this.hash = 31 * type.hashCode() + mediaType.hashCode();
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return type == other.type && mediaType.equals(other.mediaType);
+        }
+    }
+}
@@ -39,20 +39,18 @@
  */
 package de.etecture.opensource.dynamicresources.core.mapping;
 
-import de.etecture.opensource.dynamicresources.annotations.Consumes;
+import de.etecture.opensource.dynamicresources.api.ByteRequestReader;
 import de.etecture.opensource.dynamicresources.api.MediaType;
 import de.etecture.opensource.dynamicresources.api.RequestReader;
 import de.etecture.opensource.dynamicresources.metadata.MediaTypeNotAllowedException;
-import de.etecture.opensource.dynamicresources.utils.AnyLiteral;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Reader;
-import java.lang.annotation.Annotation;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.WeakHashMap;
-import javax.enterprise.inject.spi.Bean;
-import javax.enterprise.inject.spi.BeanManager;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
 import javax.inject.Inject;
 
 /**
@@ -61,87 +59,80 @@ import javax.inject.Inject;
  */
 public class RequestReaders {
 
-    private static final WeakHashMap<String, RequestReader<?>> cache =
-            new WeakHashMap<>();
+    private static final int CHAR_BUFFER_SIZE = 4096;
     @Inject
-    BeanManager beanManager;
+    ReaderWriterRegistry registry;
 
     public <T> T read(Class<T> requestType, MediaType contentType, Reader reader)
             throws IOException {
         try {
-            return resolve(requestType, contentType).processRequest(reader,
+            Object requestReader = registry.resolveReader(requestType,
+                    contentType);
+            if (requestReader instanceof ByteRequestReader) {
+                // the source has chars, so encode them again.
+                StringBuilder sb = new StringBuilder();
+                char[] buffer = new char[CHAR_BUFFER_SIZE];
+                for (int read = reader.read(buffer); read >= 0; read = reader
+                        .read(buffer)) {
+                    sb.append(buffer, 0, read);
+                }
+                return ((ByteRequestReader<T>) requestReader).processRequest(
+                        new ByteArrayInputStream(sb.toString().getBytes(
+                        contentType.encoding())), contentType);
+            }
+            return ((RequestReader<T>) requestReader).processRequest(reader,
                     contentType.toString());
         } catch (MediaTypeNotAllowedException ex) {
             return null;
         }
     }
 
-    private <T> RequestReader<T> resolve(Class<T> requestType,
-            MediaType consumeType) throws MediaTypeNotAllowedException {
-        String key = requestType.getName() + "::" + consumeType.toString();
-
-        RequestReader<T> requestReader = (RequestReader<T>) cache.get(key);
-
-        if (requestReader == null) {
-            Set<Bean<?>> beans = beanManager
-                    .getBeans(Object.class, new AnyLiteral());
-            Map<Bean<?>, Class<?>> compatibleBeans = new HashMap<>();
-            for (Bean<?> bean : beans) {
-                if (RequestReader.class.isAssignableFrom(bean.getBeanClass())) {
-                    for (Annotation annotation : bean.getQualifiers()) {
-                        if (Consumes.class.isInstance(annotation)) {
-                            if (((Consumes) annotation).requestType()
-                                    .isAssignableFrom(
-                                    requestType)) {
-                                if (((Consumes) annotation).mimeType().length
-                                        > 0) {
-                                    for (String mime : ((Consumes) annotation)
-                                            .mimeType()) {
-                                        if (consumeType.isCompatibleTo(mime)) {
-                                            compatibleBeans.put(bean,
-                                                    ((Consumes) annotation)
-                                                    .requestType());
-                                        }
-                                    }
-                                } else {
-                                    compatibleBeans.put(bean,
-                                            ((Consumes) annotation)
-                                            .requestType());
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-
-            if (compatibleBeans.isEmpty()) {
-                throw new MediaTypeNotAllowedException(consumeType);
-            } else {
-                Bean<RequestReader<T>> bean = null;
-                if (compatibleBeans.size() == 1) {
-                    bean = (Bean<RequestReader<T>>) compatibleBeans.keySet()
-                            .iterator()
-                            .next();
-                } else {
-                    for (Map.Entry<Bean<?>, Class<?>> e : compatibleBeans
-                            .entrySet()) {
-                        if (e.getValue() != Object.class) {
-                            bean = (Bean<RequestReader<T>>) e.getKey();
-                        }
-                    }
-                    if (bean == null) {
-                        bean = (Bean<RequestReader<T>>) compatibleBeans
-                                .keySet()
-                                .iterator()
-                                .next();
-                    }
-                }
-                requestReader = (RequestReader<T>) bean.create(
-                        beanManager.createCreationalContext(bean));
-                cache.put(key, requestReader);
+    /**
+     * reads the entity from the given stream. A {@link ByteRequestReader}
+     * reads directly from the stream, for a {@link RequestReader} the bytes
+     * are decoded with the given charset.
+     *
+     * @param <T>
+     * @param requestType
+     * @param contentType
+     * @param in
+     * @param charset
+     * @return the entity or null, if there is no reader for the type.
+     * @throws IOException
+     */
+    public <T> T read(Class<T> requestType, MediaType contentType,
+            InputStream in, Charset charset) throws IOException {
+        try {
+            Object requestReader = registry.resolveReader(requestType,
+                    contentType);
+            if (requestReader instanceof ByteRequestReader) {
+                return ((ByteRequestReader<T>) requestReader).processRequest(in,
+                        contentType);
             }
+            return ((RequestReader<T>) requestReader).processRequest(
+                    new InputStreamReader(in, charset), contentType.toString());
+        } catch (MediaTypeNotAllowedException ex) {
+            return null;
         }
-        return requestReader;
+    }
 
+    /**
+     * reads the entity from the given channel.
+     *
+     * @param <T>
+     * @param requestType
+     * @param contentType
+     * @param channel
+     * @param charset
+     * @return the entity or null, if there is no reader for the type.
+     * @throws IOException
+     * @see #read(java.lang.Class,
+     * de.etecture.opensource.dynamicresources.api.MediaType,
+     * java.io.InputStream, java.nio.charset.Charset)
+     */
+    public <T> T read(Class<T> requestType, MediaType contentType,
+            ReadableByteChannel channel, Charset charset) throws IOException {
+        return read(requestType, contentType, Channels.newInputStream(channel),
+                charset);
     }
 }
@@ -39,22 +39,22 @@
  */
 package de.etecture.opensource.dynamicresources.core.mapping;
 
-import de.etecture.opensource.dynamicresources.annotations.Produces;
+import de.etecture.opensource.dynamicresources.api.ByteResponseWriter;
 import de.etecture.opensource.dynamicresources.api.MediaType;
 import de.etecture.opensource.dynamicresources.api.ResponseWriter;
 import de.etecture.opensource.dynamicresources.metadata.MediaTypeAmbigiousException;
 import de.etecture.opensource.dynamicresources.metadata.MediaTypeNotSupportedException;
-import de.etecture.opensource.dynamicresources.utils.AnyLiteral;
+import de.etecture.opensource.dynamicresources.utils.BufferPool;
+import de.etecture.opensource.dynamicresources.utils.Utf8Writer;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
-import java.lang.annotation.Annotation;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.WeakHashMap;
-import javax.enterprise.inject.spi.Bean;
-import javax.enterprise.inject.spi.BeanManager;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
 import javax.inject.Inject;
-import org.apache.commons.lang.StringUtils;
 
 /**
  *
@@ -62,19 +62,22 @@ import org.apache.commons.lang.StringUtils;
  */
 public class ResponseWriters {
 
-    private static final WeakHashMap<String, ResponseWriter<?>> cache =
-            new WeakHashMap<>();
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final BufferPool ENCODER_BUFFERS = new BufferPool(4096, 64);
     @Inject
-    BeanManager beanManager;
+    ReaderWriterRegistry registry;
 
     public <T> int getContentLength(T entity, MediaType acceptedType) {
         try {
-            final ResponseWriter<T> responseWriter =
-                    (ResponseWriter<T>) resolve(entity.getClass(), acceptedType);
-            return responseWriter
-                    .getContentLength(
-                    entity,
+            Object writer = registry.resolveWriter(entity.getClass(),
                     acceptedType);
+            if (writer instanceof ResponseWriter) {
+                return ((ResponseWriter<T>) writer)
+                        .getContentLength(
+                        entity,
+                        acceptedType);
+            }
+            return -1;
         } catch (MediaTypeNotSupportedException | MediaTypeAmbigiousException ex) {
             return -1;
         }
@@ -83,69 +86,83 @@ public class ResponseWriters {
     public <T> void write(T entity, MediaType acceptedType, Writer writer)
             throws IOException, MediaTypeNotSupportedException,
             MediaTypeAmbigiousException {
-        final ResponseWriter<T> responseWriter =
-                (ResponseWriter<T>) resolve(entity.getClass(), acceptedType);
-        responseWriter
-                .processElement(entity,
-                writer,
+        Object responseWriter = registry.resolveWriter(entity.getClass(),
                 acceptedType);
+        if (responseWriter instanceof ByteResponseWriter) {
+            // the target wants chars, so decode the written bytes.
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ((ByteResponseWriter<T>) responseWriter).processElement(entity,
+                    bytes, acceptedType);
+            writer.write(bytes.toString(acceptedType.encoding().name()));
+            writer.flush();
+        } else {
+            ((ResponseWriter<T>) responseWriter)
+                    .processElement(entity,
+                    writer,
+                    acceptedType);
+        }
     }
 
-    private <T> ResponseWriter<T> resolve(final Class<T> responseType,
-            MediaType acceptedType) throws MediaTypeNotSupportedException,
+    /**
+     * writes the entity as bytes to the given stream. A {@link
+     * ByteResponseWriter} writes directly to the stream, the chars of a
+     * {@link ResponseWriter} are encoded with the given charset.
+     *
+     * @param <T>
+     * @param entity
+     * @param acceptedType
+     * @param out
+     * @param charset
+     * @throws IOException
+     * @throws MediaTypeNotSupportedException
+     * @throws MediaTypeAmbigiousException
+     */
+    public <T> void write(T entity, MediaType acceptedType, OutputStream out,
+            Charset charset) throws IOException, MediaTypeNotSupportedException,
             MediaTypeAmbigiousException {
-        String key = responseType.getName() + "::" + acceptedType.toString();
-
-        ResponseWriter<T> responseWriter = (ResponseWriter<T>) cache.get(key);
-
-        if (responseWriter == null) {
-            Set<Bean<?>> beans = beanManager
-                    .getBeans(Object.class, new AnyLiteral());
-            Set<Bean<?>> compatibleBeans = new HashSet<>();
-            for (Bean<?> bean : beans) {
-                if (ResponseWriter.class.isAssignableFrom(bean.getBeanClass())) {
-                    for (Annotation annotation : bean.getQualifiers()) {
-                        if (Produces.class.isInstance(annotation)) {
-                            if (((Produces) annotation).contentType()
-                                    .isAssignableFrom(
-                                    responseType)) {
-                                if (((Produces) annotation).mimeType().length
-                                        > 0) {
-                                    for (String mime : ((Produces) annotation)
-                                            .mimeType()) {
-                                        if (acceptedType.isCompatibleTo(mime)) {
-                                            compatibleBeans.add(bean);
-                                        }
-                                    }
-                                } else {
-                                    compatibleBeans.add(bean);
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-
-            if (compatibleBeans.isEmpty()) {
-                throw new MediaTypeNotSupportedException(acceptedType);
-            } else if (compatibleBeans.size() == 1) {
-                Bean<ResponseWriter<T>> bean =
-                        (Bean<ResponseWriter<T>>) compatibleBeans
-                        .iterator()
-                        .next();
-                responseWriter = (ResponseWriter<T>) bean.create(
-                        beanManager.createCreationalContext(bean));
-                cache.put(key, responseWriter);
-            } else {
-                Set<String> writerClasses = new HashSet<>();
-                for (Bean<?> bean : compatibleBeans) {
-                    writerClasses.add(StringUtils.defaultIfBlank(bean.getName(),
-                            bean.getBeanClass().toString()));
-                }
-                throw new MediaTypeAmbigiousException(acceptedType,
-                        writerClasses.toArray(new String[writerClasses.size()]));
+        Object responseWriter = registry.resolveWriter(entity.getClass(),
+                acceptedType);
+        if (responseWriter instanceof ByteResponseWriter) {
+            ((ByteResponseWriter<T>) responseWriter).processElement(entity,
+                    out, acceptedType);
+        } else if (UTF8.equals(charset)) {
+            byte[] buffer = ENCODER_BUFFERS.acquire();
+            try {
+                Writer writer = new Utf8Writer(out, buffer);
+                ((ResponseWriter<T>) responseWriter).processElement(entity,
+                        writer, acceptedType);
+                writer.flush();
+            } finally {
+                ENCODER_BUFFERS.release(buffer);
             }
+        } else {
+            Writer writer = new OutputStreamWriter(out, charset);
+            ((ResponseWriter<T>) responseWriter).processElement(entity,
+                    writer, acceptedType);
+            writer.flush();
         }
-        return responseWriter;
+    }
+
+    /**
+     * writes the entity as bytes to the given channel.
+     *
+     * @param <T>
+     * @param entity
+     * @param acceptedType
+     * @param channel
+     * @param charset
+     * @throws IOException
+     * @throws MediaTypeNotSupportedException
+     * @throws MediaTypeAmbigiousException
+     * @see #write(java.lang.Object,
+     * de.etecture.opensource.dynamicresources.api.MediaType,
+     * java.io.OutputStream, java.nio.charset.Charset)
+     */
+    public <T> void write(T entity, MediaType acceptedType,
+            WritableByteChannel channel, Charset charset) throws IOException,
+            MediaTypeNotSupportedException, MediaTypeAmbigiousException {
+        OutputStream out = Channels.newOutputStream(channel);
+        write(entity, acceptedType, out, charset);
+        out.flush();
     }
 }
@@ -0,0 +1,208 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.mapping.mime;
+
+import de.etecture.opensource.dynamicresources.api.MediaType;
+import de.etecture.opensource.dynamicresources.utils.BoundedCache;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+
+/**
+ * the parsed value of an Accept header.
+ * <p>
+ * the media types are ranked by their quality (<code>q</code>), then by their
+ * specificity (<code>text/html</code> before <code>text/*</code> before
+ * <code>*&#47;*</code>) and at last by their position in the header. Media
+ * types with a quality of 0 are not acceptable and are dropped, as are media
+ * types that cannot be parsed.
+ * <p>
+ * the instances are immutable and interned by {@link #valueOf(String)}, so a
+ * header value is parsed only once.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public final class AcceptHeader {
+
+    private static final int MAX_CACHED_HEADERS = 256;
+    private static final BoundedCache<String, AcceptHeader> CACHE =
+            new BoundedCache<>(MAX_CACHED_HEADERS);
+    private static final AcceptHeader ANY = new AcceptHeader(
+            new MediaType[]{MediaTypeExpression.valueOf("*/*")});
+    private final MediaType[] mediaTypes;
+
+    private AcceptHeader(MediaType[] mediaTypes) {
+        this.mediaTypes = mediaTypes;
+    }
+
+    /**
+     * returns the parsed Accept header for the given value.
+     *
+     * @param header the value of the header or null.
+     * @return
+     */
+    public static AcceptHeader valueOf(String header) {
+        if (StringUtils.isBlank(header)) {
+            return ANY;
+        }
+        AcceptHeader accept = CACHE.get(header);
+        if (accept == null) {
+            accept = CACHE.putIfAbsent(header, parse(header));
+        }
+        return accept;
+    }
+
+    /**
+     * the acceptable media types in the order of their rank.
+     *
+     * @return
+     */
+    public MediaType[] getMediaTypes() {
+        return mediaTypes.clone();
+    }
+
+    /**
+     * the most preferred media type.
+     *
+     * @return
+     */
+    public MediaType first() {
+        return mediaTypes[0];
+    }
+
+    /**
+     * selects the media type with the highest rank that is compatible to one
+     * of the available media types.
+     *
+     * @param available
+     * @return the accepted media type or null, if none is compatible.
+     */
+    public MediaType select(MediaType... available) {
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.isCompatibleTo(available)) {
+                return mediaType;
+            }
+        }
+        return null;
+    }
+
+    private static AcceptHeader parse(String header) {
+        List<Entry> entries = new ArrayList<>();
+        for (String element : StringUtils.split(header, ',')) {
+            Entry entry = parseEntry(element, entries.size());
+            if (entry != null && entry.quality > 0) {
+                entries.add(entry);
+            }
+        }
+        if (entries.isEmpty()) {
+            return ANY;
+        }
+        Collections.sort(entries, Entry.RANKING);
+        MediaType[] mediaTypes = new MediaType[entries.size()];
+        for (int i = 0; i < mediaTypes.length; i++) {
+            mediaTypes[i] = entries.get(i).mediaType;
+        }
+        return new AcceptHeader(mediaTypes);
+    }
+
+    private static Entry parseEntry(String element, int position) {
+        String[] parts = StringUtils.split(element, ';');
+        if (parts.length == 0 || StringUtils.isBlank(parts[0])) {
+            return null;
+        }
+        // only the charset is part of a media type expression.
+        StringBuilder mediaType = new StringBuilder(parts[0].trim());
+        float quality = 1f;
+        for (int i = 1; i < parts.length; i++) {
+            String name = StringUtils.substringBefore(parts[i], "=").trim();
+            String value = StringUtils.substringAfter(parts[i], "=").trim();
+            if ("q".equalsIgnoreCase(name)) {
+                quality = NumberUtils.toFloat(value, 0f);
+            } else if ("charset".equalsIgnoreCase(name)) {
+                mediaType.append("; charset=").append(value);
+            }
+        }
+        try {
+            return new Entry(MediaTypeExpression.valueOf(mediaType.toString()),
+                    quality, position);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static final class Entry {
+
+        static final Comparator<Entry> RANKING = new Comparator<Entry>() {
+            @Override
+            public int compare(Entry e1, Entry e2) {
+                int result = Float.compare(e2.quality, e1.quality);
+                if (result == 0) {
+                    result = e2.specificity - e1.specificity;
+                }
+                if (result == 0) {
+                    result = e1.position - e2.position;
+                }
+                return result;
+            }
+        };
+        final MediaType mediaType;
+        final float quality;
+        final int specificity;
+        final int position;
+
+        Entry(MediaType mediaType, float quality, int position) {
+            this.mediaType = mediaType;
+            this.quality = quality;
+            this.position = position;
+            if ("*".equals(mediaType.category())) {
+                this.specificity = 0;
+            } else if ("*".equals(mediaType.subType())) {
+                this.specificity = 1;
+            } else {
+                this.specificity = 2;
+            }
+        }
+    }
+}
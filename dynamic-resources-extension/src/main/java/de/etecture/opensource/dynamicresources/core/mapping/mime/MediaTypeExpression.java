@@ -42,6 +42,7 @@ package de.etecture.opensource.dynamicresources.core.mapping.mime;
 import de.etecture.opensource.dynamicresources.api.MediaType;
 import de.etecture.opensource.dynamicresources.api.Version;
 import de.etecture.opensource.dynamicresources.core.mapping.versions.VersionExpression;
+import de.etecture.opensource.dynamicresources.utils.BoundedCache;
 import java.nio.charset.Charset;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -55,6 +56,9 @@ public class MediaTypeExpression implements MediaType {
 
     private static final Pattern MIME_TYPE_EXPRESSION = Pattern.compile(
             "^(?<category>\\*|text|application|image|message|audio|model|multipart|video)/(?<subtype>(?:(?<space>vnd|prs|x)(?:-|\\.))?.+?)(?:\\.v(?<version>[0-9.]+))?(?:\\+(?<alttype>.+?))?(?:;\\s*charset\\s*=\\s*(?<encoding>.+))?$");
+    private static final int MAX_CACHED_MEDIA_TYPES = 1024;
+    private static final BoundedCache<String, MediaTypeExpression> CACHE =
+            new BoundedCache<>(MAX_CACHED_MEDIA_TYPES);
     private final String category, subtype, space, alttype;
     private final Charset encoding;
     private final VersionExpression version;
@@ -90,6 +94,24 @@ public class MediaTypeExpression implements MediaType {
         }
     }
 
+    /**
+     * returns the parsed media type for the given string. The instances are
+     * immutable and interned, so each distinct string is parsed only once.
+     *
+     * @param mediaType
+     * @return
+     * @throws IllegalArgumentException if the string is not a valid media
+     * type.
+     */
+    public static MediaTypeExpression valueOf(String mediaType) {
+        MediaTypeExpression expression = CACHE.get(mediaType);
+        if (expression == null) {
+            expression = CACHE.putIfAbsent(mediaType, new MediaTypeExpression(
+                    mediaType));
+        }
+        return expression;
+    }
+
     private static String getGroupOrDefaultValue(Matcher matcher,
             String groupName, String defaultValue) {
         String groupValue = matcher.group(groupName);
@@ -145,7 +167,7 @@ public class MediaTypeExpression implements MediaType {
     public boolean isCompatibleTo(String... mediaTypeStrings) {
         MediaType[] mediaTypes = new MediaType[mediaTypeStrings.length];
         for (int i = 0; i < mediaTypes.length; i++) {
-            mediaTypes[i] = new MediaTypeExpression(mediaTypeStrings[i]);
+            mediaTypes[i] = valueOf(mediaTypeStrings[i]);
         }
         return isCompatibleTo(mediaTypes);
     }
@@ -164,8 +186,6 @@ public class MediaTypeExpression implements MediaType {
     }
 
     private boolean isCompatible(MediaType mediaType) {
-        System.out.println("check if: " + mediaType + " is compatible to: "
-                + this);
         if ("*".equals(mediaType.subType())
                 || this.subtype.equalsIgnoreCase(mediaType.subType())) {
             return true;
@@ -44,7 +44,6 @@ import de.etecture.opensource.dynamicresources.core.mapping.versions.VersionComp
 import de.etecture.opensource.dynamicresources.api.Version;
 import de.etecture.opensource.dynamicresources.api.VersionNumberRange;
 import java.util.Map;
-import java.util.TreeMap;
 import javax.enterprise.inject.Default;
 
 /**
@@ -112,6 +111,9 @@ import javax.enterprise.inject.Default;
  * <td>(,2.0[</td></td>all versions lower than 2.0</td>
  * </tr>
  * </table>
+ * <p>
+ * the expressions are parsed once and cached, and the newest match is found
+ * in a single pass over the objects.
  *
  * @author rhk
  * @see VersionNumberResolver
@@ -128,28 +130,26 @@ public class DefaultVersionNumberResolver implements VersionNumberResolver {
         }
 
         // (2) reduce the map to get only matched versions.
-        VersionNumberRangeExpression exp = new VersionNumberRangeExpression(
-                versionExpression);
-        return resolve(objects, exp);
+        return resolve(objects, VersionNumberRangeExpression.valueOf(
+                versionExpression));
     }
 
     @Override
     public <T> T resolve(
             Map<Version, T> objects, VersionNumberRange exp) {
-        TreeMap<Version, T> reducedMap = new TreeMap<>(
-                new VersionComparator(
-                false));
+        // (3) return the newest matched version or null if there is none
+        Version newest = null;
+        T result = null;
         for (Map.Entry<Version, T> e : objects.entrySet()) {
-            if (exp.includes(e.getKey())) {
-                reducedMap.put(e.getKey(), e.getValue());
+            Version version = e.getKey();
+            if (exp.includes(version) && (newest == null || VersionComparator
+                    .compare(version.major(), version.minor(), version
+                    .release(), newest.major(), newest.minor(), newest
+                    .release()) >= 0)) {
+                newest = version;
+                result = e.getValue();
             }
         }
-
-        // (3) return the first of the map or null if the map is empty
-        if (reducedMap.isEmpty()) {
-            return null;
-        } else {
-            return reducedMap.firstEntry().getValue();
-        }
+        return result;
     }
 }
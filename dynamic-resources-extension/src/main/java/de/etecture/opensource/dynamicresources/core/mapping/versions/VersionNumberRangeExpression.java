@@ -41,6 +41,7 @@ package de.etecture.opensource.dynamicresources.core.mapping.versions;
 
 import de.etecture.opensource.dynamicresources.api.Version;
 import de.etecture.opensource.dynamicresources.api.VersionNumberRange;
+import de.etecture.opensource.dynamicresources.utils.BoundedCache;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
@@ -54,6 +55,10 @@ import org.apache.commons.lang.math.NumberUtils;
  */
 public class VersionNumberRangeExpression implements VersionNumberRange {
 
+    private static final int MAX_CACHED_EXPRESSIONS = 256;
+    private static final BoundedCache<String, VersionNumberRangeExpression>
+            CACHE = new BoundedCache<>(MAX_CACHED_EXPRESSIONS);
+
     public final static Pattern versionRangePattern = Pattern.compile(
             ""
             + "(?:(?<major>\\d+)(?:\\.(?<minor>\\d+)(?:\\.(?<release>\\d+))?)?)"
@@ -209,6 +214,24 @@ public class VersionNumberRangeExpression implements VersionNumberRange {
 
     }
 
+    /**
+     * returns the parsed range for the given expression. The ranges are
+     * immutable and cached, so each distinct expression is parsed only once.
+     *
+     * @param versionRangeExpression
+     * @return
+     */
+    public static VersionNumberRangeExpression valueOf(
+            String versionRangeExpression) {
+        VersionNumberRangeExpression expression = CACHE.get(
+                versionRangeExpression);
+        if (expression == null) {
+            expression = CACHE.putIfAbsent(versionRangeExpression,
+                    new VersionNumberRangeExpression(versionRangeExpression));
+        }
+        return expression;
+    }
+
     @Override
     public boolean includes(Version version) {
         if (version == null) {
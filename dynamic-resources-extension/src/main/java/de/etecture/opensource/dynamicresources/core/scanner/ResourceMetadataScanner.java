@@ -48,6 +48,8 @@ import de.etecture.opensource.dynamicresources.annotations.Executes;
 import de.etecture.opensource.dynamicresources.annotations.Method;
 import de.etecture.opensource.dynamicresources.annotations.Produces;
 import de.etecture.opensource.dynamicresources.annotations.Resource;
+import de.etecture.opensource.dynamicresources.api.ByteRequestReader;
+import de.etecture.opensource.dynamicresources.api.ByteResponseWriter;
 import de.etecture.opensource.dynamicresources.api.RequestReader;
 import de.etecture.opensource.dynamicresources.api.ResponseWriter;
 import de.etecture.opensource.dynamicresources.api.StatusCodes;
@@ -66,6 +68,7 @@ import de.etecture.opensource.dynamicresources.core.accessors.DynamicTypedResour
 import de.etecture.opensource.dynamicresources.core.accessors.DynamicTypedResourceAccessorCreator;
 import de.etecture.opensource.dynamicresources.core.executors.ExecutionMethod;
 import de.etecture.opensource.dynamicresources.core.executors.ExecutionMethodResourceMethodExecutorCreator;
+import de.etecture.opensource.dynamicresources.core.executors.ExecutionObservers;
 import de.etecture.opensource.dynamicresources.core.executors.QueryResourceMethodExecutorCreator;
 import de.etecture.opensource.dynamicresources.core.executors.ResourceMethodExecutor;
 import de.etecture.opensource.dynamicresources.core.mapping.mime.MediaTypeExpression;
@@ -84,6 +87,7 @@ import de.etecture.opensource.dynamicresources.utils.AnnotatedTypeDelegate;
 import de.etecture.opensource.dynamicresources.utils.ApplicationLiteral;
 import de.etecture.opensource.dynamicresources.utils.BeanBuilder;
 import de.etecture.opensource.dynamicresources.utils.BeanCreator;
+import de.etecture.opensource.dynamicresources.utils.BeanInstanceBuilder;
 import de.etecture.opensource.dynamicresources.utils.ConsumesLiteral;
 import de.etecture.opensource.dynamicresources.utils.MethodLiteral;
 import de.etecture.opensource.dynamicresources.utils.ProducesLiteral;
@@ -106,10 +110,12 @@ import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import javax.enterprise.event.Observes;
 import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
 import javax.enterprise.inject.spi.AnnotatedMethod;
 import javax.enterprise.inject.spi.AnnotatedType;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.BeforeShutdown;
 import javax.enterprise.inject.spi.DefinitionException;
 import javax.enterprise.inject.spi.Extension;
 import javax.enterprise.inject.spi.ProcessAnnotatedType;
@@ -136,9 +142,14 @@ public class ResourceMetadataScanner implements Extension {
             new HashMap<>();
     private final Map<Class<?>, Set<String>> consumedMimeTypes = new HashMap<>();
     private final Map<Class<?>, Set<String>> producedMimeTypes = new HashMap<>();
+    private final Map<Class<?>, Consumes> requestReaderTypes = new HashMap<>();
+    private final Map<Class<?>, Produces> responseWriterTypes = new HashMap<>();
     private final Set<ExecutionMethod<?>> executionMethods = new HashSet<>();
     private final Set<ResourceMethod> resourceMethodsWithExecution
             = new HashSet<>();
+    private final Set<de.etecture.opensource.dynamicresources.metadata.Application> applications =
+            new LinkedHashSet<>();
+    private ExecutionObservers executionObservers = ExecutionObservers.all();
 
     /**
      * scans for any type that is annotated with &#64;{@link Application}
@@ -198,7 +209,8 @@ public class ResourceMetadataScanner implements Extension {
     }
 
     /**
-     * scans for any type that is assignable from {@link RequestReader}
+     * scans for any type that is assignable from {@link RequestReader} or
+     * {@link ByteRequestReader}
      * <p>
      * will be called by the CDI-container to inform about an annotated type
      * that we have to scan.
@@ -212,17 +224,17 @@ public class ResourceMetadataScanner implements Extension {
 
         final AnnotatedType<T> at = pat.getAnnotatedType();
 
-        // look, if the type is a subtype of RequestReader.
-        if (RequestReader.class.isAssignableFrom(at.getJavaClass())
-                && RequestReader.class != at.getJavaClass()) {
+        // look, if the type is a subtype of RequestReader or ByteRequestReader.
+        if ((RequestReader.class.isAssignableFrom(at.getJavaClass())
+                && RequestReader.class != at.getJavaClass())
+                || (ByteRequestReader.class.isAssignableFrom(at.getJavaClass())
+                && ByteRequestReader.class != at.getJavaClass())) {
 
             // look if @Consumes is present ...
             if (!at.isAnnotationPresent(Consumes.class)) {
                 // lookup the class from the generics.
                 Class<?> responsibleTypeForRequestReader =
-                        findTypeForRequestReader(
-                        (Class<? extends RequestReader>) at
-                        .getJavaClass());
+                        findTypeForRequestReader(at.getJavaClass());
                 // if it is still not found, assume it is Object.class
                 if (responsibleTypeForRequestReader == null) {
                     responsibleTypeForRequestReader = Object.class;
@@ -232,6 +244,7 @@ public class ResourceMetadataScanner implements Extension {
                 final Consumes consumes = new ConsumesLiteral(
                         responsibleTypeForRequestReader, new String[]{
                     "*/*"});
+                requestReaderTypes.put(at.getJavaClass(), consumes);
                 // delegate the new @Consumes
                 pat.setAnnotatedType(new AnnotatedTypeDelegate<T>(at) {
                     @Override
@@ -251,6 +264,7 @@ public class ResourceMetadataScanner implements Extension {
                 // ... found, so add mimetypes.
                 Consumes consumes = at.getAnnotation(Consumes.class);
                 addConsumedMimeType(consumes.requestType(), consumes.mimeType());
+                requestReaderTypes.put(at.getJavaClass(), consumes);
                 LOG.log(Level.INFO,
                         "found request reader for type: {0} with mimetypes: {1} in class: {2}",
                         new Object[]{consumes.requestType(),
@@ -261,7 +275,8 @@ public class ResourceMetadataScanner implements Extension {
     }
 
     /**
-     * scans for any type that is assignable from {@link ResponseWriter}
+     * scans for any type that is assignable from {@link ResponseWriter} or
+     * {@link ByteResponseWriter}
      * <p>
      * will be called by the CDI-container to inform about an annotated type
      * that we have to scan.
@@ -275,17 +290,17 @@ public class ResourceMetadataScanner implements Extension {
 
         final AnnotatedType<T> at = pat.getAnnotatedType();
 
-        // look, if the type is a subtype of RequestReader.
-        if (ResponseWriter.class.isAssignableFrom(at.getJavaClass())
-                && ResponseWriter.class != at.getJavaClass()) {
+        // look, if the type is a subtype of ResponseWriter or ByteResponseWriter.
+        if ((ResponseWriter.class.isAssignableFrom(at.getJavaClass())
+                && ResponseWriter.class != at.getJavaClass())
+                || (ByteResponseWriter.class.isAssignableFrom(at.getJavaClass())
+                && ByteResponseWriter.class != at.getJavaClass())) {
 
             // look if @Consumes is present ...
             if (!at.isAnnotationPresent(Produces.class)) {
                 // lookup the class from the generics.
                 Class<?> responsibleTypeForResponseWriter =
-                        findTypeForResponseWriter(
-                        (Class<? extends ResponseWriter>) at
-                        .getJavaClass());
+                        findTypeForResponseWriter(at.getJavaClass());
                 // if it is still not found, assume it is Object.class
                 if (responsibleTypeForResponseWriter == null) {
                     responsibleTypeForResponseWriter = Object.class;
@@ -295,6 +310,7 @@ public class ResourceMetadataScanner implements Extension {
                 final Produces produces = new ProducesLiteral(
                         responsibleTypeForResponseWriter, new String[]{
                     "*/*"});
+                responseWriterTypes.put(at.getJavaClass(), produces);
                 // delegate the new @Produces
                 pat.setAnnotatedType(new AnnotatedTypeDelegate<T>(at) {
                     @Override
@@ -314,6 +330,7 @@ public class ResourceMetadataScanner implements Extension {
                 // ... found, so add mimetypes.
                 Produces produces = at.getAnnotation(Produces.class);
                 addProducedMimeType(produces.contentType(), produces.mimeType());
+                responseWriterTypes.put(at.getJavaClass(), produces);
                 LOG.log(Level.INFO,
                         "found response writer for type: {0} with mimetypes: {1} in class: {2}",
                         new Object[]{produces.contentType(),
@@ -352,6 +369,26 @@ public class ResourceMetadataScanner implements Extension {
         }
     }
 
+    /**
+     * returns the scanned request reader types together with their
+     * &#64;{@link Consumes} annotation.
+     *
+     * @return
+     */
+    public Map<Class<?>, Consumes> getRequestReaderTypes() {
+        return Collections.unmodifiableMap(requestReaderTypes);
+    }
+
+    /**
+     * returns the scanned response writer types together with their
+     * &#64;{@link Produces} annotation.
+     *
+     * @return
+     */
+    public Map<Class<?>, Produces> getResponseWriterTypes() {
+        return Collections.unmodifiableMap(responseWriterTypes);
+    }
+
     /**
      * buildVerbose all the applications from the scanned metadata.
      * <p>
@@ -364,8 +401,6 @@ public class ResourceMetadataScanner implements Extension {
     void buildApplicationsMetadata(@Observes AfterBeanDiscovery abd,
             BeanManager beanManager) throws
             Exception {
-        Set<de.etecture.opensource.dynamicresources.metadata.Application> applications =
-                new LinkedHashSet<>();
         for (Map.Entry<Application, Set<Class<?>>> e : resourceTypes.entrySet()) {
             // buildVerbose the application metadata
             LOG.log(Level.INFO, "build application: {0} with base: {1}",
@@ -423,6 +458,9 @@ public class ResourceMetadataScanner implements Extension {
             application.addResource(rootResource);
             abd.addBean(createResourceBean(beanManager, rootResource));
 
+            // all resources are known now, so build the routing trie.
+            application.compileRoutes();
+
         }
 
         // process the executionMethods
@@ -485,6 +523,42 @@ public class ResourceMetadataScanner implements Extension {
         }
     }
 
+    /**
+     * resolves the observers of the execution events for all resource methods.
+     * <p>
+     * will be called by the CDI-Container, when all the observers are known.
+     *
+     * @param adv
+     * @param beanManager
+     */
+    void resolveExecutionObservers(@Observes AfterDeploymentValidation adv,
+            BeanManager beanManager) {
+        executionObservers = ExecutionObservers.resolve(beanManager,
+                applications);
+    }
+
+    /**
+     * releases the caches of the created beans.
+     * <p>
+     * will be called by the CDI-Container, when it shuts down.
+     *
+     * @param bs
+     * @param beanManager
+     */
+    void releaseCaches(@Observes BeforeShutdown bs, BeanManager beanManager) {
+        BeanInstanceBuilder.release(beanManager);
+    }
+
+    /**
+     * returns the observers of the execution events, that were resolved after
+     * the deployment validation.
+     *
+     * @return
+     */
+    public ExecutionObservers getExecutionObservers() {
+        return executionObservers;
+    }
+
     Bean<ApplicationAccessor> createAccessPointBean(BeanManager beanManager,
             de.etecture.opensource.dynamicresources.metadata.Application application) {
         LOG.log(Level.INFO,
@@ -698,13 +772,13 @@ public class ResourceMetadataScanner implements Extension {
         getResourceTypesFor(annotation).add(resourceType);
     }
 
-    private Class<?> findTypeForRequestReader(
-            Class<? extends RequestReader> clazz) {
+    private Class<?> findTypeForRequestReader(Class<?> clazz) {
         for (Type intfce : clazz
                 .getGenericInterfaces()) {
             if (intfce instanceof ParameterizedType) {
                 ParameterizedType pt = ((ParameterizedType) intfce);
-                if (pt.getRawType() == RequestReader.class
+                if ((pt.getRawType() == RequestReader.class
+                        || pt.getRawType() == ByteRequestReader.class)
                         && pt.getActualTypeArguments().length > 0) {
                     return (Class<?>) pt.getActualTypeArguments()[0];
                 }
@@ -713,12 +787,12 @@ public class ResourceMetadataScanner implements Extension {
         return null;
     }
 
-    private Class<?> findTypeForResponseWriter(
-            Class<? extends ResponseWriter> clazz) {
+    private Class<?> findTypeForResponseWriter(Class<?> clazz) {
         for (Type intfce : clazz.getGenericInterfaces()) {
             if (intfce instanceof ParameterizedType) {
                 ParameterizedType pt = ((ParameterizedType) intfce);
-                if (pt.getRawType() == ResponseWriter.class
+                if ((pt.getRawType() == ResponseWriter.class
+                        || pt.getRawType() == ByteResponseWriter.class)
                         && pt.getActualTypeArguments().length > 0) {
                     return (Class<?>) pt.getActualTypeArguments()[0];
                 }
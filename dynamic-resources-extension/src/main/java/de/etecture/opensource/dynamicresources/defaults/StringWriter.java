@@ -69,6 +69,8 @@ public class StringWriter implements ResponseWriter<String> {
 
     @Override
     public int getContentLength(String entity, MediaType acceptedMediaType) {
-        return entity != null ? entity.length() : 0;
+        // the length in bytes, not in chars.
+        return entity != null ? entity.getBytes(acceptedMediaType.encoding())
+                .length : 0;
     }
 }
@@ -43,12 +43,18 @@ import de.etecture.opensource.dynamicresources.api.DefaultResponse;
 import de.etecture.opensource.dynamicresources.api.SecurityContext;
 import de.etecture.opensource.dynamicresources.api.StatusCodes;
 import de.etecture.opensource.dynamicresources.api.events.BeforeExecutionEvent;
+import de.etecture.opensource.dynamicresources.core.RequestSecurity;
 import java.util.Set;
 import javax.enterprise.event.Observes;
 import javax.inject.Inject;
 
 /**
  * checks the security for the resources in the before method.
+ * <p>
+ * if the request is handled by the servlet, the user is taken from the
+ * {@link RequestSecurity} of the request, as the request may be executed on a
+ * thread without an active request context. Otherwise the injected
+ * {@link SecurityContext} is asked.
  *
  * @author rhk
  * @version
@@ -63,6 +69,10 @@ public class SecurityResourceInterceptor {
         Set<String> allowedRoles = event.getExecutionContext()
                 .getResourceMethod().getAllowedRoleNames();
         if (!allowedRoles.isEmpty()) {
+            SecurityContext security = RequestSecurity.current();
+            if (security == null) {
+                security = this.security;
+            }
             boolean trust = false;
             for (String role : allowedRoles) {
                 trust = trust || security.isUserInRole(role);
@@ -102,6 +102,8 @@ public class AnnotatedResourceMethod extends BasicResourceMethod implements
         for (String roleName : annotation.rolesAllowed()) {
             method.addAllowedRoleName(roleName);
         }
+        method.setCacheSeconds(annotation.cacheSeconds());
+        method.setCoalesced(annotation.coalesce());
         for (Filter filter : annotation.filters()) {
             method.addFilter(AnnotatedResourceMethodFilter
                     .create(method, filter));
@@ -43,8 +43,13 @@ import de.etecture.opensource.dynamicresources.annotations.Filter;
 import de.etecture.opensource.dynamicresources.api.FilterValueGenerator;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethod;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodFilter;
+import java.util.regex.Pattern;
 
 /**
+ * a filter defined by a &#64;{@link Filter} annotation.
+ * <p>
+ * the validation regex is compiled once. The default regex, that matches
+ * everything, is not evaluated at all.
  *
  * @author rhk
  * @version
@@ -53,8 +58,10 @@ import de.etecture.opensource.dynamicresources.metadata.ResourceMethodFilter;
 public class AnnotatedResourceMethodFilter<T> implements
         ResourceMethodFilter<T> {
 
+    private static final String MATCH_ALL = "^.*$";
     private final ResourceMethod method;
     private final Filter filter;
+    private final Pattern validation;
 
     public AnnotatedResourceMethodFilter() {
         throw new IllegalStateException(
@@ -65,6 +72,8 @@ public class AnnotatedResourceMethodFilter<T> implements
                                   Filter filter) {
         this.method = method;
         this.filter = filter;
+        this.validation = MATCH_ALL.equals(filter.validationRegex()) ? null
+                : Pattern.compile(filter.validationRegex());
     }
 
     @Override
@@ -94,8 +103,8 @@ public class AnnotatedResourceMethodFilter<T> implements
 
     @Override
     public boolean isValidValue(T value) {
-        if (value != null && getType() == String.class) {
-            return ((String) value).matches(filter.validationRegex());
+        if (validation != null && value != null && getType() == String.class) {
+            return validation.matcher((String) value).matches();
         }
         return true;
     }
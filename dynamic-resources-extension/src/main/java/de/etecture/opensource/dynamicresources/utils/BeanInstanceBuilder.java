@@ -42,8 +42,12 @@ package de.etecture.opensource.dynamicresources.utils;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.inject.CreationException;
 import javax.enterprise.inject.spi.Bean;
@@ -51,6 +55,12 @@ import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.InjectionTarget;
 
 /**
+ * builds bean instances with a given constructor and lets the container inject
+ * them.
+ * <p>
+ * the injection targets and the resolved constructors are cached per type, so
+ * building an instance does not scan the type again. The caches must be
+ * released by {@link #release(BeanManager)}, when the container shuts down.
  *
  * @author rhk
  * @version
@@ -58,6 +68,8 @@ import javax.enterprise.inject.spi.InjectionTarget;
  */
 public class BeanInstanceBuilder<T> implements BeanCreator {
 
+    private static final ConcurrentMap<Class<?>, ConcurrentMap<List<Class<?>>, Constructor<?>>> CONSTRUCTORS
+            = new ConcurrentHashMap<>();
     private final InjectionTarget<T> injectionTarget;
     private final Class<T> type;
     private Constructor<T> constructor = null;
@@ -79,13 +91,22 @@ public class BeanInstanceBuilder<T> implements BeanCreator {
 
     public BeanInstanceBuilder<T> usingConstructor(Class<?>... parameterTypes)
             throws NoSuchMethodException {
-        this.constructor = type.getConstructor(parameterTypes);
+        List<Class<?>> key = Arrays.<Class<?>>asList(parameterTypes);
+        Constructor<T> resolved = (Constructor<T>) constructors().get(key);
+        if (resolved == null) {
+            resolved = type.getConstructor(parameterTypes);
+            resolved.setAccessible(true);
+            constructors().putIfAbsent(key, resolved);
+        }
+        this.constructor = resolved;
         return this;
     }
 
     public BeanInstanceBuilder<T> injectField(String fieldName, Object value)
             throws NoSuchFieldException {
-        fieldsToInject.put(this.type.getDeclaredField(fieldName), value);
+        Field field = this.type.getDeclaredField(fieldName);
+        field.setAccessible(true);
+        fieldsToInject.put(field, value);
         return this;
     }
 
@@ -94,13 +115,44 @@ public class BeanInstanceBuilder<T> implements BeanCreator {
         return this;
     }
 
-    private Constructor lookupConstructor() throws NoSuchMethodException {
+    private ConcurrentMap<List<Class<?>>, Constructor<?>> constructors() {
+        ConcurrentMap<List<Class<?>>, Constructor<?>> resolved = CONSTRUCTORS
+                .get(type);
+        if (resolved == null) {
+            resolved = new ConcurrentHashMap<>();
+            ConcurrentMap<List<Class<?>>, Constructor<?>> existing
+                    = CONSTRUCTORS.putIfAbsent(type, resolved);
+            if (existing != null) {
+                resolved = existing;
+            }
+        }
+        return resolved;
+    }
+
+    private Constructor<T> lookupConstructor() throws NoSuchMethodException {
+        // the constructors are cached by the classes of the init arguments
+        Class<?>[] argumentTypes = new Class<?>[initArguments.length];
+        for (int i = 0; i < initArguments.length; i++) {
+            argumentTypes[i] = initArguments[i] == null ? null
+                    : initArguments[i].getClass();
+        }
+        List<Class<?>> key = Arrays.asList(argumentTypes);
+        Constructor<T> resolved = (Constructor<T>) constructors().get(key);
+        if (resolved == null) {
+            resolved = findConstructor();
+            resolved.setAccessible(true);
+            constructors().putIfAbsent(key, resolved);
+        }
+        return resolved;
+    }
+
+    private Constructor findConstructor() throws NoSuchMethodException {
         outer:
         for (Constructor ctr : type.getDeclaredConstructors()) {
             Class[] parameterTypes = ctr.getParameterTypes();
             if (parameterTypes.length == initArguments.length) {
                 for (int i = 0; i < parameterTypes.length; i++) {
-                    if (!parameterTypes[i].isInstance(initArguments[0])) {
+                    if (!parameterTypes[i].isInstance(initArguments[i])) {
                         continue outer;
                     }
                 }
@@ -116,7 +168,6 @@ public class BeanInstanceBuilder<T> implements BeanCreator {
         if (this.constructor == null) {
             this.constructor = lookupConstructor();
         }
-        this.constructor.setAccessible(true);
         return this.constructor.newInstance(initArguments);
     }
 
@@ -126,7 +177,6 @@ public class BeanInstanceBuilder<T> implements BeanCreator {
         withInitArguments(parameterValues);
         T instance = produce();
         for (Map.Entry<Field, Object> fieldToInject : fieldsToInject.entrySet()) {
-            fieldToInject.getKey().setAccessible(true);
             fieldToInject.getKey().set(instance, fieldToInject.getValue());
         }
         if (injectionTarget != null && ctx != null) {
@@ -155,13 +205,25 @@ public class BeanInstanceBuilder<T> implements BeanCreator {
         return (X) build();
     }
 
+    /**
+     * releases the cached injection targets of the given bean manager and all
+     * the cached constructors, so the classes of an undeployed application
+     * are not held anymore.
+     *
+     * @param beanManager
+     */
+    public static void release(BeanManager beanManager) {
+        InjectionTargets.release(beanManager);
+        CONSTRUCTORS.clear();
+    }
+
     public static <X> BeanInstanceBuilder<X> forType(Class<X> type) {
         return new BeanInstanceBuilder(type, null);
     }
 
     public static <X> BeanInstanceBuilder<X> forBeanType(Class<X> beanType,
             BeanManager beanManager) {
-        return new BeanInstanceBuilder(beanType, beanManager
-                .createInjectionTarget(beanManager.createAnnotatedType(beanType)));
+        return new BeanInstanceBuilder(beanType, InjectionTargets.of(
+                beanManager, beanType));
     }
 }
@@ -45,6 +45,10 @@ import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.InjectionTarget;
 
 /**
+ * calls the pre-destroy callbacks of the instance.
+ * <p>
+ * the injection target is cached per bean class, since dependent beans are
+ * destroyed as often as they are created.
  *
  * @author rhk
  * @version
@@ -58,9 +62,8 @@ public class DefaultBeanDestroyer implements BeanDestroyer {
             Bean<T> bean, T instance,
             CreationalContext<T> creationalContext) {
         if (instance != null) {
-            InjectionTarget<T> it = (InjectionTarget<T>) beanManager
-                    .createInjectionTarget(beanManager.createAnnotatedType(bean
-                    .getBeanClass()));
+            InjectionTarget<T> it = (InjectionTarget<T>) InjectionTargets.of(
+                    beanManager, bean.getBeanClass());
             it.preDestroy(instance);
         }
     }
@@ -0,0 +1,106 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.InjectionTarget;
+
+/**
+ * caches the {@link InjectionTarget} of a type.
+ * <p>
+ * creating the annotated type and its injection target scans the whole class,
+ * so it is done only once per type and bean manager instead of for every bean
+ * instance that is created or destroyed. The injection targets of a bean
+ * manager are released, when its container shuts down.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+final class InjectionTargets {
+
+    private static final ConcurrentMap<BeanManager, ConcurrentMap<Class<?>, InjectionTarget<?>>> TARGETS
+            = new ConcurrentHashMap<>();
+
+    private InjectionTargets() {
+    }
+
+    /**
+     * returns the injection target of the given type.
+     *
+     * @param <T>
+     * @param beanManager
+     * @param type
+     * @return
+     */
+    static <T> InjectionTarget<T> of(BeanManager beanManager, Class<T> type) {
+        ConcurrentMap<Class<?>, InjectionTarget<?>> targets = TARGETS.get(
+                beanManager);
+        if (targets == null) {
+            targets = new ConcurrentHashMap<>();
+            ConcurrentMap<Class<?>, InjectionTarget<?>> existing = TARGETS
+                    .putIfAbsent(beanManager, targets);
+            if (existing != null) {
+                targets = existing;
+            }
+        }
+        InjectionTarget<?> target = targets.get(type);
+        if (target == null) {
+            target = beanManager.createInjectionTarget(beanManager
+                    .createAnnotatedType(type));
+            InjectionTarget<?> existing = targets.putIfAbsent(type, target);
+            if (existing != null) {
+                target = existing;
+            }
+        }
+        return (InjectionTarget<T>) target;
+    }
+
+    /**
+     * releases the injection targets of the given bean manager.
+     *
+     * @param beanManager
+     */
+    static void release(BeanManager beanManager) {
+        TARGETS.remove(beanManager);
+    }
+}
@@ -106,4 +106,14 @@ public class MethodLiteral extends AnnotationLiteral<Method> implements Method {
     public Header[] headers() {
         return new Header[0];
     }
+
+    @Override
+    public int cacheSeconds() {
+        return 0;
+    }
+
+    @Override
+    public boolean coalesce() {
+        return false;
+    }
 }
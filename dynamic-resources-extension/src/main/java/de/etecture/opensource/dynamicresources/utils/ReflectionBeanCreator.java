@@ -56,9 +56,8 @@ public class ReflectionBeanCreator implements BeanCreator {
             BeanManager beanManager,
             Bean<T> bean,
             CreationalContext<T> creationalContext) {
-        InjectionTarget<T> it = (InjectionTarget<T>) beanManager
-                .createInjectionTarget(beanManager.createAnnotatedType(bean
-                .getBeanClass()));
+        InjectionTarget<T> it = (InjectionTarget<T>) InjectionTargets.of(
+                beanManager, bean.getBeanClass());
         T instance = produce(beanManager, it, creationalContext);
         it.inject(instance, creationalContext);
         it.postConstruct(instance);
@@ -0,0 +1,140 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core;
+
+import de.etecture.opensource.dynamicresources.api.Response;
+import de.etecture.opensource.dynamicresources.api.StatusCodes;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ * tests the admission, the eviction and the generations of the
+ * {@link ResponseCache}.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public class ResponseCacheTest {
+
+    private static final long NOW = 1000L;
+    private final ResponseCache cache = new ResponseCache(100);
+
+    @Test
+    public void aRejectedEntryChangesNothing() {
+        request("hot", 5);
+        put("hot", 60, 0L);
+        put("cold", 60, 0L);
+        // the cold entry is requested less often than the one to evict.
+        assertEquals(60, cache.get("hot", 0L, NOW).getContent().length);
+        assertNull(cache.get("cold", 0L, NOW));
+    }
+
+    @Test
+    public void replacesTheEntryOfTheSameKey() {
+        put("key", 60, 0L);
+        put("key", 70, 0L);
+        assertEquals(70, cache.get("key", 0L, NOW).getContent().length);
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedEntry() {
+        put("first", 40, 0L);
+        put("second", 40, 0L);
+        assertNotNull(cache.get("first", 0L, NOW));
+        put("third", 40, 0L);
+        assertNotNull(cache.get("first", 0L, NOW));
+        assertNull(cache.get("second", 0L, NOW));
+        assertNotNull(cache.get("third", 0L, NOW));
+    }
+
+    @Test
+    public void answersNothingOfAnEarlierGeneration() {
+        request("key", 5);
+        put("key", 60, 0L);
+        assertNull(cache.get("key", 1L, NOW));
+        // the stale entry is evicted first, no matter how often it was used.
+        put("other", 60, 1L);
+        assertNotNull(cache.get("other", 1L, NOW));
+    }
+
+    @Test
+    public void answersNothingExpired() {
+        put("key", 10, 0L);
+        assertNotNull(cache.get("key", 0L, NOW + 59999L));
+        assertNull(cache.get("key", 0L, NOW + 60000L));
+    }
+
+    private void request(String key, int times) {
+        for (int i = 0; i < times; i++) {
+            cache.get(key, 0L, NOW);
+        }
+    }
+
+    private void put(String key, int length, long generation) {
+        cache.put(key, generation, new Response<Object>() {
+            @Override
+            public Object getEntity() {
+                return null;
+            }
+
+            @Override
+            public int getStatus() {
+                return StatusCodes.OK;
+            }
+
+            @Override
+            public List<Object> getHeader(String headerName) {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public Set<Map.Entry<String, List<Object>>> getHeaders() {
+                return Collections.emptySet();
+            }
+        }, new byte[length], 60, NOW);
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.executors;
+
+import de.etecture.opensource.dynamicresources.api.ExecutionContext;
+import de.etecture.opensource.dynamicresources.api.HttpMethods;
+import de.etecture.opensource.dynamicresources.api.ResourceException;
+import de.etecture.opensource.dynamicresources.api.StatusCodes;
+import de.etecture.opensource.dynamicresources.metadata.BasicResourceMethod;
+import de.etecture.opensource.dynamicresources.metadata.BasicResourceMethodResponse;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import javax.enterprise.inject.spi.AnnotatedMethod;
+import javax.enterprise.inject.spi.AnnotatedParameter;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * checks, that the {@link ExecutionMethodInvoker} passes the exceptions of the
+ * execution method unwrapped, but rejects arguments, that do not fit, like
+ * {@link Method#invoke} did.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public class ExecutionMethodInvokerTest {
+
+    private final ExecutionContext<Object, Void> context =
+            new ExecutionContext<>(new BasicResourceMethodResponse<>(
+            new BasicResourceMethod(null, HttpMethods.GET, "the tested method"),
+            Object.class, StatusCodes.OK), null);
+
+    @Test
+    public void testInvoke() throws Exception {
+        assertEquals(context, invoker("echo").invoke(context));
+    }
+
+    @Test
+    public void testExceptionIsNotWrapped() throws Exception {
+        try {
+            invoker("fail").invoke(context);
+            fail("the exception of the execution method was not thrown");
+        } catch (NullPointerException ex) {
+            assertEquals("failed", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void testNullForPrimitiveIsRejected() throws Exception {
+        try {
+            invoker("count").invoke(context);
+            fail("null was passed to a primitive parameter");
+        } catch (ResourceException ex) {
+            assertTrue(ex.getCause() instanceof IllegalArgumentException);
+        }
+    }
+
+    private static ExecutionMethodInvoker invoker(String name) throws
+            Exception {
+        for (Method method : Sample.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return ExecutionMethodInvoker.compile(new ExecutionMethod<>(
+                        annotated(method)), new Sample());
+            }
+        }
+        throw new NoSuchMethodException(name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AnnotatedMethod<Sample> annotated(final Method method) {
+        final List<AnnotatedParameter<Sample>> parameters = new ArrayList<>();
+        for (int i = 0; i < method.getParameterTypes().length; i++) {
+            final int position = i;
+            parameters.add(proxy(AnnotatedParameter.class,
+                    new InvocationHandler() {
+                @Override
+                public Object invoke(Object proxy, Method m, Object[] args) {
+                    switch (m.getName()) {
+                        case "getPosition":
+                            return position;
+                        case "getBaseType":
+                            return method.getGenericParameterTypes()[position];
+                        case "isAnnotationPresent":
+                            return false;
+                        case "hashCode":
+                            return position;
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                }
+            }));
+        }
+        return proxy(AnnotatedMethod.class, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method m, Object[] args) {
+                switch (m.getName()) {
+                    case "getJavaMember":
+                        return method;
+                    case "getParameters":
+                        return parameters;
+                    case "isStatic":
+                    case "isAnnotationPresent":
+                        return false;
+                    default:
+                        return null;
+                }
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(ExecutionMethodInvokerTest.class
+                .getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * the bean with the execution methods.
+     */
+    public static class Sample {
+
+        public Object echo(ExecutionContext<Object, Void> context) {
+            return context;
+        }
+
+        public Object fail(ExecutionContext<Object, Void> context) {
+            throw new NullPointerException("failed");
+        }
+
+        public Object count(ExecutionContext<Object, Void> context, int count) {
+            return count;
+        }
+    }
+}
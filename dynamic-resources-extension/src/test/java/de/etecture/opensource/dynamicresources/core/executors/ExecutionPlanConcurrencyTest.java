@@ -0,0 +1,310 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.executors;
+
+import de.etecture.opensource.dynamicresources.api.ExecutionContext;
+import de.etecture.opensource.dynamicresources.api.FilterValueGenerator;
+import de.etecture.opensource.dynamicresources.api.HeaderValueGenerator;
+import de.etecture.opensource.dynamicresources.api.HttpMethods;
+import de.etecture.opensource.dynamicresources.api.Response;
+import de.etecture.opensource.dynamicresources.api.StatusCodes;
+import de.etecture.opensource.dynamicresources.api.events.AfterExecutionEvent;
+import de.etecture.opensource.dynamicresources.api.events.BeforeExecutionEvent;
+import de.etecture.opensource.dynamicresources.metadata.BasicResourceMethod;
+import de.etecture.opensource.dynamicresources.metadata.BasicResourceMethodResponse;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodFilter;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponseHeader;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javax.enterprise.event.Event;
+import javax.enterprise.util.TypeLiteral;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * executes one {@link ExecutionPlan} from many threads and checks, that every
+ * execution gets its own entity, status and headers, and that nothing of an
+ * execution leaks into the later ones.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public class ExecutionPlanConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int EXECUTIONS = 2000;
+    private static final String ID = "id";
+    private static final String GENERATED = "X-Generated";
+    private static final String OBSERVED = "X-Observed";
+
+    private final BasicResourceMethodResponse<String> responseMetadata =
+            new BasicResourceMethodResponse<>(new BasicResourceMethod(null,
+            HttpMethods.GET, "the tested method"), String.class,
+            StatusCodes.OK);
+    private final ExecutionPlan plan = new ExecutionPlan(responseMetadata,
+            new EchoExecutor(), new ResourceMethodFilter<?>[0],
+            new FilterValueGenerator[0],
+            new ResourceMethodResponseHeader[]{new Header(GENERATED)},
+            new HeaderValueGenerator[]{new IdGenerator()},
+            new CancelingObserver(), new StatusObserver(), null);
+
+    @Test
+    public void executionsDoNotShareState() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<List<Response<String>>>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int first = t * EXECUTIONS;
+                futures.add(executor.submit(
+                        new Callable<List<Response<String>>>() {
+                    @Override
+                    public List<Response<String>> call() throws Exception {
+                        start.await();
+                        List<Response<String>> responses = new ArrayList<>(
+                                EXECUTIONS);
+                        for (int id = first; id < first + EXECUTIONS; id++) {
+                            Response<String> response = execute(id);
+                            // check at once, before other executions follow.
+                            assertResponse(id, response);
+                            responses.add(response);
+                        }
+                        return responses;
+                    }
+                }));
+            }
+            start.countDown();
+            for (int t = 0; t < THREADS; t++) {
+                List<Response<String>> responses = futures.get(t).get();
+                // check again, after all other executions are done.
+                for (int i = 0; i < EXECUTIONS; i++) {
+                    assertResponse(t * EXECUTIONS + i, responses.get(i));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private Response<String> execute(int id) throws Exception {
+        ExecutionContext<String, Void> context = new ExecutionContext<>(
+                responseMetadata, null, null, Collections
+                .<String, Object>singletonMap(ID, id), plan
+                .getParameterLayout());
+        return plan.execute(context);
+    }
+
+    private static void assertResponse(int id, Response<String> response)
+            throws Exception {
+        if (isCanceled(id)) {
+            assertEquals("canceled " + id, response.getEntity());
+            assertEquals(StatusCodes.CONFLICT, response.getStatus());
+            assertTrue(response.getHeaders().isEmpty());
+        } else {
+            assertEquals("entity " + id, response.getEntity());
+            assertEquals(statusOf(id), response.getStatus());
+            assertEquals(Arrays.<Object>asList(String.valueOf(id)), response
+                    .getHeader(GENERATED));
+            assertEquals(Arrays.<Object>asList(String.valueOf(id)), response
+                    .getHeader(OBSERVED));
+            assertEquals(2, response.getHeaders().size());
+        }
+    }
+
+    private static boolean isCanceled(int id) {
+        return id % 7 == 0;
+    }
+
+    private static int statusOf(int id) {
+        return id % 2 == 0 ? StatusCodes.OK : StatusCodes.ACCEPTED;
+    }
+
+    private static int idOf(ExecutionContext<?, ?> context) {
+        return (Integer) context.getParameterValue(ID);
+    }
+
+    /**
+     * returns the id of the execution as entity.
+     */
+    private static final class EchoExecutor extends
+            AbstractResourceMethodExecutor {
+
+        @Override
+        protected <R, B> R getEntity(ExecutionContext<R, B> context) throws
+                Exception {
+            return context.getResponseMetadata().getResponseType().cast(
+                    "entity " + idOf(context));
+        }
+    }
+
+    /**
+     * generates the id of the execution as header value.
+     */
+    private static final class IdGenerator implements HeaderValueGenerator {
+
+        @Override
+        public Object generateHeaderValue(ResourceMethodResponseHeader header,
+                ExecutionContext context) {
+            return String.valueOf(idOf(context));
+        }
+    }
+
+    private static final class Header implements ResourceMethodResponseHeader {
+
+        private final String name;
+
+        Header(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.DEFAULT;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return name;
+        }
+
+        @Override
+        public Object getDefaultValue() {
+            return null;
+        }
+
+        @Override
+        public Class<? extends HeaderValueGenerator> getGenerator() {
+            return IdGenerator.class;
+        }
+    }
+
+    /**
+     * cancels some of the executions with an own response.
+     */
+    private static final class CancelingObserver extends
+            Observer<BeforeExecutionEvent> {
+
+        @Override
+        public void fire(BeforeExecutionEvent event) {
+            final int id = idOf(event.getExecutionContext());
+            if (isCanceled(id)) {
+                event.cancel(new Response<String>() {
+                    @Override
+                    public String getEntity() {
+                        return "canceled " + id;
+                    }
+
+                    @Override
+                    public int getStatus() {
+                        return StatusCodes.CONFLICT;
+                    }
+
+                    @Override
+                    public List<Object> getHeader(String headerName) {
+                        return Collections.emptyList();
+                    }
+
+                    @Override
+                    public Set<Map.Entry<String, List<Object>>> getHeaders() {
+                        return Collections.emptySet();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * sets the status and a header of the execution.
+     */
+    private static final class StatusObserver extends
+            Observer<AfterExecutionEvent> {
+
+        @Override
+        public void fire(AfterExecutionEvent event) {
+            int id = idOf(event.getExecutionContext());
+            event.setStatusCode(statusOf(id));
+            event.addHeaderValue(OBSERVED, String.valueOf(id));
+        }
+    }
+
+    /**
+     * an event, that is observed by itself.
+     *
+     * @param <T>
+     */
+    private abstract static class Observer<T> implements Event<T> {
+
+        @Override
+        public Event<T> select(Annotation... qualifiers) {
+            return this;
+        }
+
+        @Override
+        public <U extends T> Event<U> select(Class<U> subtype,
+                Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends T> Event<U> select(TypeLiteral<U> subtype,
+                Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
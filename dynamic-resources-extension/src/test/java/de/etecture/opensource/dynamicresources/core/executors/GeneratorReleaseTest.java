@@ -0,0 +1,446 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.executors;
+
+import de.etecture.opensource.dynamicresources.api.ExecutionContext;
+import de.etecture.opensource.dynamicresources.api.FilterValueGenerator;
+import de.etecture.opensource.dynamicresources.api.HeaderValueGenerator;
+import de.etecture.opensource.dynamicresources.api.HttpMethods;
+import de.etecture.opensource.dynamicresources.api.Response;
+import de.etecture.opensource.dynamicresources.api.StatusCodes;
+import de.etecture.opensource.dynamicresources.api.events.AfterExecutionEvent;
+import de.etecture.opensource.dynamicresources.api.events.BeforeExecutionEvent;
+import de.etecture.opensource.dynamicresources.core.scanner.ResourceMetadataScanner;
+import de.etecture.opensource.dynamicresources.metadata.AbstractApplication;
+import de.etecture.opensource.dynamicresources.metadata.AbstractResource;
+import de.etecture.opensource.dynamicresources.metadata.Application;
+import de.etecture.opensource.dynamicresources.metadata.BasicResourceMethod;
+import de.etecture.opensource.dynamicresources.metadata.BasicResourceMethodResponse;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethod;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodFilter;
+import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponseHeader;
+import de.etecture.opensource.dynamicresources.metadata.ResourcePath;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.enterprise.event.Event;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.util.TypeLiteral;
+import javax.servlet.ServletSecurityElement;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * compiles the execution plans of many resource methods concurrently and
+ * checks, that one generator is kept per generator class and that every
+ * created generator is destroyed.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public class GeneratorReleaseTest {
+
+    private static final int THREADS = 8;
+    private static final int METHODS = 500;
+    private final Generators<FilterValueGenerator> filterGenerators =
+            new Generators<>();
+    private final Generators<HeaderValueGenerator> headerGenerators =
+            new Generators<>();
+    private final ResourceMethodExecutions executions =
+            new ResourceMethodExecutions();
+
+    public GeneratorReleaseTest() {
+        executions.scanner = new ResourceMetadataScanner();
+        executions.allExecutors = new Fixed<ResourceMethodExecutor>(
+                new ResourceMethodExecutor() {
+            @Override
+            public <R, B> Response<R> execute(ExecutionPlan plan,
+                    ExecutionContext<R, B> context) {
+                throw new UnsupportedOperationException();
+            }
+        });
+        executions.filterGenerators = filterGenerators;
+        executions.headerGenerators = headerGenerators;
+        executions.beforeEvents = new NoEvent<>();
+        executions.afterSuccessEvents = new NoEvent<>();
+        executions.afterFailedEvents = new NoEvent<>();
+    }
+
+    @Test
+    public void everyGeneratorIsReleased() throws Exception {
+        final List<BasicResourceMethodResponse<String>> responses =
+                responses();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        for (BasicResourceMethodResponse<String> response
+                                : responses) {
+                            executions.getPlan(response);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        for (BasicResourceMethodResponse<String> response : responses) {
+            assertSame(executions.getPlan(response), executions.getPlan(
+                    response));
+        }
+        // one generator per class is kept, no matter how many plans use it.
+        assertEquals(2, filterGenerators.created.get()
+                - filterGenerators.destroyed.get());
+        assertEquals(2, headerGenerators.created.get()
+                - headerGenerators.destroyed.get());
+        executions.releaseGenerators();
+        assertEquals(filterGenerators.created.get(), filterGenerators.destroyed
+                .get());
+        assertEquals(headerGenerators.created.get(), headerGenerators.destroyed
+                .get());
+    }
+
+    private static List<BasicResourceMethodResponse<String>> responses() {
+        Application application = new AbstractApplication("test", "/",
+                "the tested application") {
+            @Override
+            public ServletSecurityElement getApplicationSecurity() {
+                return null;
+            }
+        };
+        List<BasicResourceMethodResponse<String>> responses = new ArrayList<>(
+                METHODS);
+        for (int i = 0; i < METHODS; i++) {
+            AbstractResource resource = new AbstractResource(application,
+                    "resource" + i, "a tested resource") {
+                @Override
+                public ResourcePath getPath() {
+                    return null;
+                }
+            };
+            ResourceMethod method = new Method(resource, i % 2 == 0
+                    ? FirstFilterGenerator.class
+                    : SecondFilterGenerator.class);
+            BasicResourceMethodResponse<String> response =
+                    new BasicResourceMethodResponse<>(method, String.class,
+                    StatusCodes.OK);
+            response.addHeader(new Header("X-First",
+                    FirstHeaderGenerator.class));
+            response.addHeader(new Header("X-Second", i % 3 == 0
+                    ? FirstHeaderGenerator.class
+                    : SecondHeaderGenerator.class));
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    /**
+     * a GET method with one filter.
+     */
+    private static final class Method extends BasicResourceMethod {
+
+        Method(AbstractResource resource,
+                Class<? extends FilterValueGenerator> generator) {
+            super(resource, HttpMethods.GET, "a tested method");
+            addFilter(new Filter(this, generator));
+        }
+    }
+
+    private static final class Filter implements ResourceMethodFilter<String> {
+
+        private final ResourceMethod method;
+        private final Class<? extends FilterValueGenerator> generator;
+
+        Filter(ResourceMethod method,
+                Class<? extends FilterValueGenerator> generator) {
+            this.method = method;
+            this.generator = generator;
+        }
+
+        @Override
+        public ResourceMethod getResourceMethod() {
+            return method;
+        }
+
+        @Override
+        public Class<String> getType() {
+            return String.class;
+        }
+
+        @Override
+        public String getName() {
+            return "filter";
+        }
+
+        @Override
+        public String getDescription() {
+            return "a tested filter";
+        }
+
+        @Override
+        public String getDefaultValue() {
+            return null;
+        }
+
+        @Override
+        public boolean isValidValue(String value) {
+            return true;
+        }
+
+        @Override
+        public Class<? extends FilterValueGenerator> getValueGenerator() {
+            return generator;
+        }
+    }
+
+    private static final class Header implements ResourceMethodResponseHeader {
+
+        private final String name;
+        private final Class<? extends HeaderValueGenerator> generator;
+
+        Header(String name, Class<? extends HeaderValueGenerator> generator) {
+            this.name = name;
+            this.generator = generator;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.DEFAULT;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return name;
+        }
+
+        @Override
+        public Object getDefaultValue() {
+            return null;
+        }
+
+        @Override
+        public Class<? extends HeaderValueGenerator> getGenerator() {
+            return generator;
+        }
+    }
+
+    public static class FirstFilterGenerator implements FilterValueGenerator {
+
+        @Override
+        public <T> T generate(ResourceMethodFilter<T> filter,
+                ExecutionContext<?, ?> context) {
+            return null;
+        }
+    }
+
+    public static class SecondFilterGenerator extends FirstFilterGenerator {
+    }
+
+    public static class FirstHeaderGenerator implements HeaderValueGenerator {
+
+        @Override
+        public Object generateHeaderValue(ResourceMethodResponseHeader header,
+                ExecutionContext context) {
+            return null;
+        }
+    }
+
+    public static class SecondHeaderGenerator extends FirstHeaderGenerator {
+    }
+
+    /**
+     * an instance, that creates a new generator of the selected class for
+     * each call of {@link #get()} and counts the created and destroyed ones.
+     *
+     * @param <T>
+     */
+    private static final class Generators<T> extends Fixed<T> {
+
+        private final AtomicInteger created;
+        private final AtomicInteger destroyed;
+        private final Class<? extends T> type;
+
+        Generators() {
+            this(new AtomicInteger(), new AtomicInteger(), null);
+        }
+
+        private Generators(AtomicInteger created, AtomicInteger destroyed,
+                Class<? extends T> type) {
+            super(null);
+            this.created = created;
+            this.destroyed = destroyed;
+            this.type = type;
+        }
+
+        @Override
+        public <U extends T> Instance<U> select(Class<U> subtype,
+                Annotation... qualifiers) {
+            return new Generators<>(created, destroyed, subtype);
+        }
+
+        @Override
+        public T get() {
+            try {
+                T generator = type.newInstance();
+                created.incrementAndGet();
+                return generator;
+            } catch (InstantiationException | IllegalAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public void destroy(T instance) {
+            destroyed.incrementAndGet();
+        }
+    }
+
+    /**
+     * an instance, that always returns the same object.
+     *
+     * @param <T>
+     */
+    private static class Fixed<T> implements Instance<T> {
+
+        private final T instance;
+
+        Fixed(T instance) {
+            this.instance = instance;
+        }
+
+        @Override
+        public Instance<T> select(Annotation... qualifiers) {
+            return this;
+        }
+
+        @Override
+        public <U extends T> Instance<U> select(Class<U> subtype,
+                Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends T> Instance<U> select(TypeLiteral<U> subtype,
+                Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean isUnsatisfied() {
+            return false;
+        }
+
+        @Override
+        public boolean isAmbiguous() {
+            return false;
+        }
+
+        @Override
+        public void destroy(T instance) {
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return Collections.singleton(instance).iterator();
+        }
+
+        @Override
+        public T get() {
+            return instance;
+        }
+    }
+
+    /**
+     * an event without observers.
+     *
+     * @param <T>
+     */
+    private static final class NoEvent<T> implements Event<T> {
+
+        @Override
+        public void fire(T event) {
+        }
+
+        @Override
+        public Event<T> select(Annotation... qualifiers) {
+            return this;
+        }
+
+        @Override
+        public <U extends T> Event<U> select(Class<U> subtype,
+                Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <U extends T> Event<U> select(TypeLiteral<U> subtype,
+                Annotation... qualifiers) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
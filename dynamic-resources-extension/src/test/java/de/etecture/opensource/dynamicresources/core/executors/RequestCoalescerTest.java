@@ -0,0 +1,226 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.core.executors;
+
+import de.etecture.opensource.dynamicresources.api.ResourceException;
+import de.etecture.opensource.dynamicresources.api.Response;
+import de.etecture.opensource.dynamicresources.api.StatusCodes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * executes identical requests concurrently and checks, that the resource
+ * method is executed once, also if the leader fails or is too slow.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public class RequestCoalescerTest {
+
+    private static final int FOLLOWERS = 8;
+    private static final long TIMEOUT = 10000L;
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+    private final RequestCoalescer.Key key = RequestCoalescer.key(null,
+            Collections.<String, Object>singletonMap("id", new String[]{"1"}),
+            "user");
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger executions = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void shutdown() throws InterruptedException {
+        release.countDown();
+        executor.shutdownNow();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void sharesTheResponseOfTheLeader() throws Exception {
+        final Response<String> response = new TestResponse();
+        Future<Response<String>> leader = lead(response, null, TIMEOUT);
+        List<Future<Response<String>>> followers = follow(TIMEOUT);
+        release.countDown();
+        assertSame(response, leader.get());
+        for (Future<Response<String>> follower : followers) {
+            assertEquals("entity", follower.get().getEntity());
+            assertEquals(StatusCodes.OK, follower.get().getStatus());
+        }
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void throwsTheExceptionOfTheLeader() throws Exception {
+        ResourceException failure = new ResourceException("failed");
+        Future<Response<String>> leader = lead(null, failure, TIMEOUT);
+        List<Future<Response<String>>> followers = follow(TIMEOUT);
+        release.countDown();
+        assertFailed(failure, leader);
+        for (Future<Response<String>> follower : followers) {
+            assertFailed(failure, follower);
+        }
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    public void electsOneNewLeaderIfTheLeaderIsTooSlow() throws Exception {
+        // the first leader is released only after its followers took over.
+        lead(new TestResponse(), null, TIMEOUT);
+        List<Future<Response<String>>> followers = follow(100L);
+        for (Future<Response<String>> follower : followers) {
+            assertEquals("entity", follower.get().getEntity());
+        }
+        assertEquals(2, executions.get());
+    }
+
+    private Future<Response<String>> lead(final Response<String> response,
+            final ResourceException failure, final long timeout)
+            throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        Future<Response<String>> future = executor.submit(
+                new Callable<Response<String>>() {
+            @Override
+            public Response<String> call() throws Exception {
+                return coalescer.execute(key, timeout,
+                        new RequestCoalescer.Execution<String>() {
+                    @Override
+                    public Response<String> execute() throws
+                            ResourceException {
+                        executions.incrementAndGet();
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException ex) {
+                            Thread.currentThread().interrupt();
+                        }
+                        if (failure != null) {
+                            throw failure;
+                        }
+                        return response;
+                    }
+                });
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return future;
+    }
+
+    private List<Future<Response<String>>> follow(final long timeout) throws
+            InterruptedException {
+        final CountDownLatch waiting = new CountDownLatch(FOLLOWERS);
+        List<Future<Response<String>>> futures = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            futures.add(executor.submit(new Callable<Response<String>>() {
+                @Override
+                public Response<String> call() throws Exception {
+                    waiting.countDown();
+                    return coalescer.execute(key, timeout,
+                            new RequestCoalescer.Execution<String>() {
+                        @Override
+                        public Response<String> execute() {
+                            executions.incrementAndGet();
+                            try {
+                                // the other followers time out meanwhile.
+                                Thread.sleep(50L);
+                            } catch (InterruptedException ex) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return new TestResponse();
+                        }
+                    });
+                }
+            }));
+        }
+        assertTrue(waiting.await(10, TimeUnit.SECONDS));
+        // give the followers the time to find the leader.
+        Thread.sleep(50L);
+        return futures;
+    }
+
+    private static void assertFailed(ResourceException failure,
+            Future<Response<String>> future) throws InterruptedException {
+        try {
+            future.get();
+            fail("the exception of the leader was not thrown");
+        } catch (ExecutionException ex) {
+            assertSame(failure, ex.getCause());
+        }
+    }
+
+    private static final class TestResponse implements Response<String> {
+
+        @Override
+        public String getEntity() {
+            return "entity";
+        }
+
+        @Override
+        public int getStatus() {
+            return StatusCodes.OK;
+        }
+
+        @Override
+        public List<Object> getHeader(String headerName) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public Set<Map.Entry<String, List<Object>>> getHeaders() {
+            return Collections.emptySet();
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.utils;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Assume;
+import org.junit.Test;
+
+/**
+ * tests the {@link ArrayMap} against a {@link HashMap}, both with entries in
+ * the arrays and after they are moved to the overflow map.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public class ArrayMapTest {
+
+    private static final int ITERATIONS = 100000;
+
+    @Test
+    public void behavesLikeAHashMap() {
+        for (int size : new int[]{0, 1, ArrayMap.MAX_ARRAY_SIZE,
+                                  ArrayMap.MAX_ARRAY_SIZE + 1, 100}) {
+            ArrayMap<String, Integer> map = new ArrayMap<>();
+            Map<String, Integer> expected = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                assertNull(map.put("key" + i, i));
+                expected.put("key" + i, i);
+            }
+            assertEquals(expected, map);
+            assertEquals(map, expected);
+            assertEquals(expected.hashCode(), map.hashCode());
+            assertEquals(size, map.size());
+            for (int i = 0; i < size; i++) {
+                assertTrue(map.containsKey("key" + i));
+                assertEquals(i, (int) map.get("key" + i));
+            }
+            assertFalse(map.containsKey("key" + size));
+            assertNull(map.get("key" + size));
+        }
+    }
+
+    @Test
+    public void replacesTheValueOfAnExistingKey() {
+        ArrayMap<String, Integer> map = filled(ArrayMap.MAX_ARRAY_SIZE);
+        // replacing a value of a full map does not move the entries.
+        assertEquals(0, (int) map.put("key0", 42));
+        assertEquals(ArrayMap.MAX_ARRAY_SIZE, map.size());
+        assertEquals(42, (int) map.get("key0"));
+        map.put("key" + ArrayMap.MAX_ARRAY_SIZE, 0);
+        assertEquals(42, (int) map.put("key0", 43));
+        assertEquals(ArrayMap.MAX_ARRAY_SIZE + 1, map.size());
+        assertEquals(43, (int) map.get("key0"));
+    }
+
+    @Test
+    public void removesInTheArraysAndAfterTheMove() {
+        for (int size : new int[]{3, 40}) {
+            ArrayMap<String, Integer> map = filled(size);
+            assertEquals(0, (int) map.remove("key0"));
+            assertEquals(size / 2, (int) map.remove("key" + size / 2));
+            assertEquals(size - 1, (int) map.remove("key" + (size - 1)));
+            assertNull(map.remove("key0"));
+            assertEquals(size - 3, map.size());
+            assertFalse(map.containsKey("key0"));
+            for (int i = 1; i < size - 1; i++) {
+                if (i != size / 2) {
+                    assertEquals(i, (int) map.get("key" + i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void iteratesAndRemovesByTheIterator() {
+        for (int size : new int[]{5, 40}) {
+            ArrayMap<String, Integer> map = filled(size);
+            int count = 0;
+            int sum = 0;
+            for (Iterator<Map.Entry<String, Integer>> it = map.entrySet()
+                    .iterator(); it.hasNext();) {
+                Map.Entry<String, Integer> e = it.next();
+                assertEquals("key" + e.getValue(), e.getKey());
+                count++;
+                sum += e.getValue();
+                if (e.getValue() % 2 == 0) {
+                    it.remove();
+                } else {
+                    e.setValue(-e.getValue());
+                }
+            }
+            assertEquals(size, count);
+            assertEquals(size * (size - 1) / 2, sum);
+            assertEquals(size / 2, map.size());
+            for (int i = 0; i < size; i++) {
+                assertEquals(i % 2 == 0 ? null : -i, map.get("key" + i));
+            }
+        }
+    }
+
+    @Test
+    public void failsFastOnConcurrentModification() {
+        ArrayMap<String, Integer> map = filled(3);
+        Iterator<Map.Entry<String, Integer>> it = map.entrySet().iterator();
+        it.next();
+        map.put("other", 0);
+        try {
+            it.next();
+            fail("the modification was not detected");
+        } catch (ConcurrentModificationException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void acceptsANullKey() {
+        for (int size : new int[]{3, 40}) {
+            ArrayMap<String, Integer> map = filled(size);
+            map.put(null, -1);
+            assertTrue(map.containsKey(null));
+            assertEquals(-1, (int) map.get(null));
+            assertEquals(-1, (int) map.remove(null));
+            assertFalse(map.containsKey(null));
+        }
+    }
+
+    @Test
+    public void isReusableAfterClear() {
+        ArrayMap<String, Integer> map = filled(40);
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get("key0"));
+        map.put("key0", 1);
+        assertEquals(1, map.size());
+        assertEquals(1, (int) map.get("key0"));
+    }
+
+    @Test
+    public void allocatesLessThanAHashMap() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threads)
+                .isThreadAllocatedMemoryEnabled());
+        // warm up, so the allocations of the class loading are not counted.
+        allocatedBytes(new ArrayMap<String, Object>());
+        allocatedBytes(new HashMap<String, Object>());
+        long arrayMap = allocatedBytes(new ArrayMap<String, Object>());
+        long hashMap = allocatedBytes(new HashMap<String, Object>());
+        assertTrue(String.format(
+                "ArrayMap allocates %d bytes per map, HashMap %d", arrayMap
+                / ITERATIONS, hashMap / ITERATIONS), arrayMap < hashMap);
+    }
+
+    /**
+     * returns the bytes, that are allocated to build maps with the typical
+     * number of parameters of a request.
+     *
+     * @param prototype
+     * @return
+     */
+    private static long allocatedBytes(Map<String, Object> prototype) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        Object[] keep = new Object[ITERATIONS];
+        long start = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ITERATIONS; i++) {
+            Map<String, Object> map = prototype instanceof ArrayMap
+                    ? new ArrayMap<String, Object>()
+                    : new HashMap<String, Object>();
+            map.put("query", "title:*");
+            map.put("limit", 100);
+            map.put("skip", 0);
+            keep[i] = map;
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - start;
+        assertEquals(3, ((Map<?, ?>) keep[ITERATIONS - 1]).size());
+        return allocated;
+    }
+
+    private static ArrayMap<String, Integer> filled(int size) {
+        ArrayMap<String, Integer> map = new ArrayMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put("key" + i, i);
+        }
+        return map;
+    }
+}
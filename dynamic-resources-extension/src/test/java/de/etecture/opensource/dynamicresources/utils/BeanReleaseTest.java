@@ -0,0 +1,179 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.InjectionTarget;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * creates and releases beans many times and checks, that every created bean
+ * is destroyed and that the injection targets are not built again for every
+ * bean.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public class BeanReleaseTest {
+
+    private static final int BEANS = 10000;
+    private final CountingBeanManager first = new CountingBeanManager();
+    private final CountingBeanManager second = new CountingBeanManager();
+
+    @After
+    public void release() {
+        BeanInstanceBuilder.release(first.proxy);
+        BeanInstanceBuilder.release(second.proxy);
+    }
+
+    @Test
+    public void everyCreatedBeanIsDestroyed() {
+        DefaultBeanDestroyer destroyer = new DefaultBeanDestroyer();
+        Bean<Sample> bean = bean(Sample.class);
+        CreationalContext<Sample> ctx = proxy(CreationalContext.class,
+                new Counter());
+        for (int i = 0; i < BEANS; i++) {
+            // the bean managers of two archives alternate.
+            CountingBeanManager beanManager = i % 2 == 0 ? first : second;
+            Sample sample = BeanInstanceBuilder.forBeanType(Sample.class,
+                    beanManager.proxy).usingCreationalContext(ctx).build();
+            destroyer.destroy(beanManager.proxy, bean, sample, ctx);
+        }
+        assertEquals(BEANS / 2, first.target.count("postConstruct"));
+        assertEquals(BEANS / 2, first.target.count("preDestroy"));
+        assertEquals(BEANS / 2, second.target.count("postConstruct"));
+        assertEquals(BEANS / 2, second.target.count("preDestroy"));
+        // the injection target is built once per bean manager.
+        assertEquals(1, first.count("createInjectionTarget"));
+        assertEquals(1, second.count("createInjectionTarget"));
+    }
+
+    @Test
+    public void releaseDropsTheInjectionTargetsOfTheBeanManager() {
+        InjectionTarget<Sample> target = InjectionTargets.of(first.proxy,
+                Sample.class);
+        assertSame(target, InjectionTargets.of(first.proxy, Sample.class));
+        InjectionTargets.of(second.proxy, Sample.class);
+        BeanInstanceBuilder.release(first.proxy);
+        InjectionTargets.of(first.proxy, Sample.class);
+        InjectionTargets.of(second.proxy, Sample.class);
+        assertEquals(2, first.count("createInjectionTarget"));
+        assertEquals(1, second.count("createInjectionTarget"));
+    }
+
+    private static <T> Bean<T> bean(final Class<T> beanClass) {
+        return proxy(Bean.class, new Counter() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                super.invoke(proxy, method, args);
+                return "getBeanClass".equals(method.getName()) ? beanClass
+                        : null;
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<?> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(BeanReleaseTest.class
+                .getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * a bean.
+     */
+    public static class Sample {
+    }
+
+    /**
+     * counts the invocations of the methods.
+     */
+    private static class Counter implements InvocationHandler {
+
+        private final Map<String, Integer> counts = new HashMap<>();
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method,
+                Object[] args) {
+            Integer count = counts.get(method.getName());
+            counts.put(method.getName(), count == null ? 1 : count + 1);
+            return null;
+        }
+
+        synchronized int count(String methodName) {
+            Integer count = counts.get(methodName);
+            return count == null ? 0 : count;
+        }
+    }
+
+    /**
+     * a bean manager, whose injection target counts its invocations.
+     */
+    private static final class CountingBeanManager extends Counter {
+
+        private final Counter target = new Counter();
+        private final InjectionTarget<?> injectionTarget = proxy(
+                InjectionTarget.class, target);
+        private final BeanManager proxy = proxy(BeanManager.class, this);
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            super.invoke(proxy, method, args);
+            if ("createInjectionTarget".equals(method.getName())) {
+                return injectionTarget;
+            } else if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            } else if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            }
+            return null;
+        }
+    }
+}
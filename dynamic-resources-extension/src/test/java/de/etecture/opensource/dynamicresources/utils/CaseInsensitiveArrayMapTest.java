@@ -0,0 +1,117 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.utils;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * tests the {@link CaseInsensitiveArrayMap}, both with entries in the arrays
+ * and after they are moved to the overflow map.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public class CaseInsensitiveArrayMapTest {
+
+    private static final int[] SIZES = {3, ArrayMap.MAX_ARRAY_SIZE + 10};
+
+    @Test
+    public void ignoresTheCaseOfTheKeys() {
+        for (int size : SIZES) {
+            CaseInsensitiveArrayMap<Integer> map = filled(size);
+            for (int i = 0; i < size; i++) {
+                assertEquals(i, (int) map.get("x-header-" + i));
+                assertTrue(map.containsKey("X-HEADER-" + i));
+            }
+            assertEquals(0, (int) map.put("x-HEADER-0", 42));
+            assertEquals(size, map.size());
+            assertEquals(42, (int) map.remove("X-header-0"));
+            assertFalse(map.containsKey("X-Header-0"));
+            assertEquals(size - 1, map.size());
+        }
+    }
+
+    @Test
+    public void keepsTheKeysAsTheyWereAdded() {
+        for (int size : SIZES) {
+            CaseInsensitiveArrayMap<Integer> map = filled(size);
+            map.put("x-header-1", 1);
+            Set<String> keys = new HashSet<>();
+            for (Map.Entry<String, Integer> e : map.entrySet()) {
+                keys.add(e.getKey());
+            }
+            assertEquals(size, keys.size());
+            assertTrue(keys.contains("X-Header-1"));
+        }
+    }
+
+    @Test
+    public void acceptsNullKeysAndOtherTypes() {
+        for (int size : SIZES) {
+            CaseInsensitiveArrayMap<Integer> map = filled(size);
+            assertNull(map.get(null));
+            assertFalse(map.containsKey(null));
+            assertNull(map.get(42));
+            assertFalse(map.containsKey(42));
+            assertNull(map.remove(42));
+            map.put(null, -1);
+            assertEquals(-1, (int) map.get(null));
+            assertEquals(size + 1, map.size());
+            assertEquals(-1, (int) map.remove(null));
+            assertEquals(size, map.size());
+        }
+    }
+
+    private static CaseInsensitiveArrayMap<Integer> filled(int size) {
+        CaseInsensitiveArrayMap<Integer> map = new CaseInsensitiveArrayMap<>();
+        for (int i = 0; i < size; i++) {
+            map.put("X-Header-" + i, i);
+        }
+        return map;
+    }
+}
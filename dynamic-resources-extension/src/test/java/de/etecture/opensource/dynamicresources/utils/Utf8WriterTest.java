@@ -0,0 +1,120 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * compares the bytes of the {@link Utf8Writer} with the bytes of an
+ * {@link OutputStreamWriter}.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public class Utf8WriterTest {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Test
+    public void testEncoding() throws IOException {
+        assertWritten("ascii \u00e4\u00f6\u00fc \u20ac \ud83d\ude00 end");
+    }
+
+    @Test
+    public void testUnpairedSurrogates() throws IOException {
+        assertWritten("a\ud83db");
+        assertWritten("a\ude00b");
+        assertWritten("\ud83d\ud83d\ude00");
+    }
+
+    @Test
+    public void testPendingSurrogateOnFlush() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Writer writer = new Utf8Writer(out, new byte[16]);
+        writer.write("a\ud83d");
+        writer.flush();
+        assertEquals("a?", new String(out.toByteArray(), UTF8));
+    }
+
+    @Test
+    public void testPendingSurrogateOnClose() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (Writer writer = new OutputStreamWriter(expected, UTF8)) {
+            writer.write("a\ud83d");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Writer writer = new Utf8Writer(out, new byte[16])) {
+            writer.write("a\ud83d");
+        }
+        assertArrayEquals(expected.toByteArray(), out.toByteArray());
+    }
+
+    /**
+     * writes the text char by char, as string and as char array through
+     * buffers of several sizes and compares it with String.getBytes, which
+     * replaces the unpaired surrogates with '?', too.
+     */
+    private static void assertWritten(String text) throws IOException {
+        byte[] bytes = text.getBytes(UTF8);
+        for (int bufferSize : new int[]{4, 5, 7, 4096}) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Writer writer = new Utf8Writer(out, new byte[bufferSize]);
+            for (int i = 0; i < text.length(); i++) {
+                writer.write(text.charAt(i));
+            }
+            writer.write(text);
+            writer.write(text.toCharArray());
+            writer.flush();
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            for (int i = 0; i < 3; i++) {
+                expected.write(bytes);
+            }
+            assertArrayEquals(expected.toByteArray(), out.toByteArray());
+        }
+    }
+}
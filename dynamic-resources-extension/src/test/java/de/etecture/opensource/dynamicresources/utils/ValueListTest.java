@@ -0,0 +1,166 @@
+/*
+ *  This file is part of the ETECTURE Open Source Community Projects.
+ *
+ *  Copyright (c) 2013 by:
+ *
+ *  ETECTURE GmbH
+ *  Darmstädter Landstraße 112
+ *  60598 Frankfurt
+ *  Germany
+ *
+ *  All rights reserved.
+ *
+ *  Redistribution and use in source and binary forms, with or without
+ *  modification, are permitted provided that the following conditions are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice,
+ *     this list of conditions and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice,
+ *     this list of conditions and the following disclaimer in the documentation
+ *     and/or other materials provided with the distribution.
+ *
+ *  3. Neither the name of the author nor the names of its contributors may be
+ *     used to endorse or promote products derived from this software without
+ *     specific prior written permission.
+ *
+ *  THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ *  AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ *  IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ *  ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+ *  LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ *  CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ *  SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS;
+ *  OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+ *  WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR
+ *  OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF
+ *  ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ */
+package de.etecture.opensource.dynamicresources.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * tests the {@link ValueList} against an {@link ArrayList}, both with a single
+ * value and with several values.
+ *
+ * @author rhk
+ * @version
+ * @since
+ */
+public class ValueListTest {
+
+    @Test
+    public void addsAtEveryIndex() {
+        for (int size = 0; size < 10; size++) {
+            for (int index = 0; index <= size; index++) {
+                List<Integer> list = filled(new ValueList<Integer>(), size);
+                List<Integer> expected = filled(new ArrayList<Integer>(), size);
+                list.add(index, -1);
+                expected.add(index, -1);
+                assertEquals(expected, list);
+                assertEquals(expected.hashCode(), list.hashCode());
+            }
+        }
+    }
+
+    @Test
+    public void removesAtEveryIndex() {
+        for (int size = 1; size < 10; size++) {
+            for (int index = 0; index < size; index++) {
+                List<Integer> list = filled(new ValueList<Integer>(), size);
+                List<Integer> expected = filled(new ArrayList<Integer>(), size);
+                assertEquals(expected.remove(index), list.remove(index));
+                assertEquals(expected, list);
+            }
+        }
+    }
+
+    @Test
+    public void setsAtEveryIndex() {
+        for (int size = 1; size < 10; size++) {
+            for (int index = 0; index < size; index++) {
+                List<Integer> list = filled(new ValueList<Integer>(), size);
+                List<Integer> expected = filled(new ArrayList<Integer>(), size);
+                assertEquals(expected.set(index, -1), list.set(index, -1));
+                assertEquals(expected, list);
+            }
+        }
+    }
+
+    @Test
+    public void isReusableAfterRemovingAllValues() {
+        ValueList<Integer> list = filled(new ValueList<Integer>(), 5);
+        while (!list.isEmpty()) {
+            list.remove(0);
+        }
+        list.add(1);
+        list.add(0, 0);
+        assertEquals(Arrays.asList(0, 1), list);
+        list.clear();
+        list.add(2);
+        assertEquals(Arrays.asList(2), list);
+    }
+
+    @Test
+    public void removesByTheIterator() {
+        ValueList<Integer> list = filled(new ValueList<Integer>(), 6);
+        for (Iterator<Integer> it = list.iterator(); it.hasNext();) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(Arrays.asList(1, 3, 5), list);
+    }
+
+    @Test
+    public void rejectsInvalidIndexes() {
+        for (int size : new int[]{0, 1, 3}) {
+            ValueList<Integer> list = filled(new ValueList<Integer>(), size);
+            assertOutOfBounds(list, -1);
+            assertOutOfBounds(list, size);
+            try {
+                list.add(size + 1, 0);
+                fail("added at: " + (size + 1));
+            } catch (IndexOutOfBoundsException ex) {
+                assertTrue(list.size() == size);
+            }
+        }
+    }
+
+    private static void assertOutOfBounds(List<Integer> list, int index) {
+        try {
+            list.get(index);
+            fail("got: " + index);
+        } catch (IndexOutOfBoundsException ex) {
+            // expected
+        }
+        try {
+            list.set(index, 0);
+            fail("set: " + index);
+        } catch (IndexOutOfBoundsException ex) {
+            // expected
+        }
+        try {
+            list.remove(index);
+            fail("removed: " + index);
+        } catch (IndexOutOfBoundsException ex) {
+            // expected
+        }
+    }
+
+    private static <L extends List<Integer>> L filled(L list, int size) {
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+        }
+        return list;
+    }
+}
@@ -59,6 +59,8 @@ import java.util.List;
 @Methods(
         @Method(name = HttpMethods.GET,
                 description = "gets the movies.",
+                cacheSeconds = 60,
+                coalesce = true,
                 filters = {
                     @Filter(name = "query",
                             defaultValue = "title:*",
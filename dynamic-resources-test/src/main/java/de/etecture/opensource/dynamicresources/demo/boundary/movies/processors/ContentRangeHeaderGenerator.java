@@ -80,11 +80,8 @@ package de.etecture.opensource.dynamicresources.demo.boundary.movies.processors;
 import de.etecture.opensource.dynamicresources.api.ExecutionContext;
 import de.etecture.opensource.dynamicresources.api.HeaderValueGenerator;
 import de.etecture.opensource.dynamicresources.metadata.ResourceMethodResponseHeader;
-import de.herschke.converters.api.ConvertException;
-import de.herschke.converters.api.Converters;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import javax.inject.Inject;
 
 /**
  * adds a content-range header to the response, when the context contains
@@ -99,23 +96,12 @@ public class ContentRangeHeaderGenerator implements HeaderValueGenerator {
     private static final Logger LOG = Logger.getLogger(
             ContentRangeHeaderGenerator.class.getName());
 
-    @Inject
-    Converters converters;
-
     @Override
     public Object generateHeaderValue(ResourceMethodResponseHeader header,
                                       ExecutionContext context) {
         try {
-                int limit = converters
-                        .select(Integer.class)
-                        .convert(
-                                context
-                                .getParameterValue("limit", 0));
-                int skip = converters
-                        .select(Integer.class)
-                        .convert(
-                                context
-                                .getParameterValue("skip", 0));
+                int limit = context.getInt("limit", 0);
+                int skip = context.getInt("skip", 0);
                 if (limit > 0) {
                     LOG.log(Level.FINER,
                             "add a Content-Range header with: skip={0} and limit={1}",
@@ -123,7 +109,7 @@ public class ContentRangeHeaderGenerator implements HeaderValueGenerator {
                                          limit});
                     return String.format("entities %d-%d/*", skip, skip + limit);
                 }
-        } catch (ConvertException ex) {
+        } catch (NumberFormatException ex) {
             LOG
                     .log(Level.WARNING,
                          "cannot convert skip or limit parameter.", ex);